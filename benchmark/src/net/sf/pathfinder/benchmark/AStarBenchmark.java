@@ -0,0 +1,109 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/
+
+package net.sf.pathfinder.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.pathfinder.algo.AStarAlgorithm;
+import net.sf.pathfinder.algo.Algorithm;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.util.StringUtils;
+
+/**
+ * Measures the A* query time on a graph, by default the bundled
+ * <code>graph/deutschland.graph.xml</code>.
+ * A fixed, seeded sample of pairs of named nodes is routed, so runs on
+ * different versions of the algorithm are comparable.
+ */
+public final class AStarBenchmark {
+
+	private static final String DEFAULT_GRAPH = "graph/deutschland.graph.xml";
+	private static final int PAIRS = 200;
+	private static final long SEED = 42;
+	private static final int WARMUP_ROUNDS = 1;
+	private static final int MEASURED_ROUNDS = 3;
+
+	private AStarBenchmark() {
+
+	}
+
+	/**
+	 * Runs the benchmark
+	 * @param args Optional path of the graph file
+	 */
+	public static void main(String[] args) {
+		String file = args.length > 0 ? args[0] : DEFAULT_GRAPH;
+		Graph graph = Graph.load(file);
+		if (graph == null) {
+			System.err.println("Can't load graph " + file);
+			return;
+		}
+
+		List<Node> namedNodes = new ArrayList<Node>();
+		for (Node node : graph.getNodes()) {
+			if (!StringUtils.isNullOrEmpty(node.getName())) {
+				namedNodes.add(node);
+			}
+		}
+		if (namedNodes.size() < 2) {
+			System.err.println("The graph needs at least two named nodes");
+			return;
+		}
+
+		Random random = new Random(SEED);
+		Node[][] pairs = new Node[PAIRS][];
+		for (int i = 0; i < PAIRS; i++) {
+			Node source = namedNodes.get(random.nextInt(namedNodes.size()));
+			Node destination;
+			do {
+				destination = namedNodes.get(random.nextInt(namedNodes.size()));
+			} while (destination == source);
+			pairs[i] = new Node[] { source, destination };
+		}
+
+		Algorithm algorithm = new AStarAlgorithm();
+		System.out.println(String.format("Graph: %s (%d nodes, %d named)", file,
+				graph.getNodes().size(), namedNodes.size()));
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			runRound(algorithm, graph, pairs);
+		}
+
+		long total = 0;
+		int queries = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			total += runRound(algorithm, graph, pairs);
+			queries += pairs.length;
+		}
+
+		System.out.println(String.format("Queries: %d", queries));
+		System.out.println(String.format("Total:   %.1f ms", total / 1e6));
+		System.out.println(String.format("Query:   %.3f ms", total / 1e6 / queries));
+	}
+
+	private static long runRound(Algorithm algorithm, Graph graph, Node[][] pairs) {
+		long start = System.nanoTime();
+		for (Node[] pair : pairs) {
+			algorithm.calculateRoute(graph, pair[0], pair[1], null);
+		}
+		return System.nanoTime() - start;
+	}
+}
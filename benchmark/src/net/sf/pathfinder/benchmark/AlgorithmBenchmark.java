@@ -0,0 +1,157 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.pathfinder.algo.Algorithm;
+import net.sf.pathfinder.algo.AlgorithmDescriptor;
+import net.sf.pathfinder.algo.AlgorithmListener;
+import net.sf.pathfinder.algo.TraceLevel;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a single route query of every algorithm on the bundled and
+ * generated graphs (see {@link BenchmarkGraphs}).
+ * <p>
+ * The route is the <code>pair</code>-th pair of a seeded random sequence of
+ * route nodes, or the nodes named by <code>source</code> and
+ * <code>destination</code>, if they are set. The first query runs in the
+ * setup, so preprocessing like landmarks and contraction hierarchies, which
+ * is done once per graph, is not measured. For the same reason the shortest
+ * path tree algorithm measures the answer from its cached tree.
+ * </p>
+ * The full matrix takes hours; select parameters on the command line, e.g.
+ * <pre>java -jar benchmark/target/benchmarks.jar -p algorithm=A-Star,Dijkstra -p graph=deutschland</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlgorithmBenchmark {
+
+	private static final long SEED = 42;
+
+	@Param({ "A-Star", "Depth First", "Depth First with Heuristic", "Breadth First",
+			"Hill Climbing", "Beam", "British Museum", "Branch And Bound", "Dijkstra",
+			"Depth Limited", "Great Deluge", "Bidirectional Dijkstra", "Bidirectional A-Star",
+			"Contraction Hierarchies", "Shortest Path Tree" })
+	public String algorithm;
+
+	@Param({ "test_graph", "test_graph_big", "pyGraph", "deutschland", "grid-10000",
+			"geometric-10000", "planar-10000", "scalefree-10000" })
+	public String graph;
+
+	@Param({ "0", "1", "2" })
+	public int pair;
+
+	@Param({ "" })
+	public String source;
+
+	@Param({ "" })
+	public String destination;
+
+	@Param({ "FINAL_ONLY" })
+	public TraceLevel traceLevel;
+
+	private Graph benchmarkGraph;
+	private Node start;
+	private Node end;
+	private Algorithm instance;
+	private final PathListener listener = new PathListener();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		benchmarkGraph = BenchmarkGraphs.get(graph);
+
+		List<Node> nodes = BenchmarkGraphs.getRouteNodes(benchmarkGraph);
+		Random random = new Random(SEED);
+		for (int i = 0; i <= pair; i++) {
+			start = nodes.get(random.nextInt(nodes.size()));
+			do {
+				end = nodes.get(random.nextInt(nodes.size()));
+			} while (end == start);
+		}
+		if (!StringUtils.isNullOrEmpty(source)) {
+			start = findNode(source);
+		}
+		if (!StringUtils.isNullOrEmpty(destination)) {
+			end = findNode(destination);
+		}
+
+		for (AlgorithmDescriptor descriptor : Algorithm.getAlgorithms()) {
+			if (descriptor.getName().equals(algorithm)) {
+				instance = Algorithm.newInstance(descriptor);
+			}
+		}
+		if (instance == null) {
+			throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+		}
+		instance.setTraceLevel(traceLevel);
+
+		route();
+	}
+
+	private Node findNode(String name) {
+		Node node = benchmarkGraph.findNode(name);
+		if (node == null) {
+			throw new IllegalArgumentException("Unknown node " + name + " in " + graph);
+		}
+		return node;
+	}
+
+	@Benchmark
+	public Path route() {
+		instance.calculateRoute(benchmarkGraph, start, end, listener);
+		return listener.path;
+	}
+
+	/**
+	 * Keeps the final path of a calculation
+	 */
+	private static class PathListener implements AlgorithmListener {
+		private Path path;
+
+		@Override
+		public void algorithmStep(String message, Path currentPath, boolean finished, boolean found) {
+			if (finished) {
+				path = currentPath;
+			}
+		}
+	}
+}
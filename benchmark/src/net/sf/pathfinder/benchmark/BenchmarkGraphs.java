@@ -0,0 +1,121 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.pathfinder.generator.GraphGenerator;
+import net.sf.pathfinder.generator.GraphModelSink;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.util.StringUtils;
+
+/**
+ * The graphs of the benchmarks, by name. The bundled graphs are named like
+ * their files without the extension (<code>deutschland</code> for
+ * <code>graph/deutschland.graph.xml</code>); generated graphs are named by the
+ * type of the {@link GraphGenerator} and the node count, e.g.
+ * <code>planar-10000</code>, and use the default settings of the generator.
+ * Generated graphs are seeded, so every run gets the same graph.
+ */
+public final class BenchmarkGraphs {
+
+	/**
+	 * System property for the directory of the bundled graphs
+	 */
+	public static final String GRAPH_DIR_PROPERTY = "pathfinder.graphDir";
+
+	private static final long SEED = 42;
+
+	private static final Map<String, Graph> graphs = new HashMap<String, Graph>();
+
+	private BenchmarkGraphs() {
+
+	}
+
+	/**
+	 * Gets a graph, graphs are loaded or generated once per JVM
+	 * @param name The name of the graph
+	 * @return The graph
+	 * @throws IllegalArgumentException If there is no graph with the name
+	 */
+	public static synchronized Graph get(String name) {
+		Graph graph = graphs.get(name);
+		if (graph == null) {
+			graph = create(name);
+			graphs.put(name, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Gets the nodes benchmark routes are selected from: the named nodes, if
+	 * there are at least two of them, otherwise all nodes
+	 * @param graph The graph
+	 * @return The nodes
+	 */
+	public static List<Node> getRouteNodes(Graph graph) {
+		List<Node> namedNodes = new ArrayList<Node>();
+		for (Node node : graph.getNodes()) {
+			if (!StringUtils.isNullOrEmpty(node.getName())) {
+				namedNodes.add(node);
+			}
+		}
+		return namedNodes.size() >= 2 ? namedNodes : new ArrayList<Node>(graph.getNodes());
+	}
+
+	private static Graph create(String name) {
+		int separator = name.lastIndexOf('-');
+		if (separator > 0) {
+			GraphGenerator generator = GraphGenerator.newInstance(name.substring(0, separator));
+			generator.setNodeCount(Integer.parseInt(name.substring(separator + 1)));
+			generator.setSeed(SEED);
+			GraphModelSink sink = new GraphModelSink();
+			try {
+				generator.generate(sink);
+			} catch (IOException e) {
+				throw new IllegalStateException("Generating graph " + name + " failed", e);
+			}
+			return sink.getGraph();
+		}
+
+		File file = new File(getGraphDirectory(), name + ".graph.xml");
+		Graph graph = Graph.load(file.getPath());
+		if (graph == null) {
+			throw new IllegalArgumentException("Can't load graph " + file);
+		}
+		return graph;
+	}
+
+	private static File getGraphDirectory() {
+		String directory = System.getProperty(GRAPH_DIR_PROPERTY);
+		if (directory != null) {
+			return new File(directory);
+		}
+		File graphDirectory = new File("graph");
+		if (!graphDirectory.isDirectory()) {
+			graphDirectory = new File("../graph");
+		}
+		return graphDirectory;
+	}
+}
@@ -0,0 +1,54 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the gc profiler, which reports the allocation
+ * per query (<code>gc.alloc.rate.norm</code>). Takes the usual JMH command
+ * line options.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+
+	}
+
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command line options
+	 * @throws RunnerException If a benchmark fails
+	 * @throws CommandLineOptionException If the options are not valid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			options.include(AlgorithmBenchmark.class.getSimpleName());
+		}
+		options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
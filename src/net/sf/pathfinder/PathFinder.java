@@ -20,6 +20,7 @@ package net.sf.pathfinder;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
+import net.sf.pathfinder.batch.BatchRouter;
 import net.sf.pathfinder.help.Help;
 import net.sf.pathfinder.help.HelpDispatcher;
 import net.sf.pathfinder.ui.PathFinderForm;
@@ -45,10 +46,16 @@ public final class PathFinder {
 	}
 	
 	/**
-	 * The main entry point for the application
+	 * The main entry point for the application. If there are command line
+	 * arguments, a batch of route queries is calculated without user
+	 * interface, see {@link BatchRouter}.
 	 * @param args The command line arguments
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0) {
+			BatchRouter.main(args);
+			return;
+		}
 		
 		//Ensure the graphs directory exists
 		SwingUtilities.invokeLater(new Runnable() {
@@ -17,18 +17,21 @@
 
 package net.sf.pathfinder.algo;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
-import net.sf.pathfinder.model.Edge;
+import net.sf.pathfinder.model.CompiledGraph;
 import net.sf.pathfinder.model.Graph;
 import net.sf.pathfinder.model.Node;
-import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.IndexedHeap;
+import net.sf.pathfinder.util.properties.PropertyInfo;
 
 
 /**
+ * A* search on the compiled graph. The open list is an indexed heap keyed by
+ * <code>f = g + h</code>, so taking the best node and lowering the key of a
+ * node already in the open list are both logarithmic. The closed list is the
+ * reusable set of visited nodes. The heuristic is either the air line distance or the
+ * landmark lower bound (see {@link Landmarks}).
  * @author Dirk Reske
  * 
  */
@@ -38,6 +41,12 @@ public class AStarAlgorithm extends Algorithm {
 	 * Creates a new A* Algorithm instance
 	 */
 	public AStarAlgorithm() {
+		addProperty(new PropertyInfo(HEURISTIC, 
+				HEURISTIC_DESC,
+				String.class,
+				new String[] {HEURISTIC_AIRLINE, HEURISTIC_LANDMARKS }),
+				HEURISTIC_AIRLINE);
+		addLandmarkProperties();
 	}
 
 	/**
@@ -51,86 +60,85 @@ public class AStarAlgorithm extends Algorithm {
 	 *            Destination node for the path
 	 * @return The shortest path
 	 */
+	@Override
+	public boolean isSettlingNodes() {
+		return true;
+	}
+
 	@Override
 	protected void calculateRoute(Graph graph, Node start, Node destination) {
-		List<Node> closedList = new ArrayList<Node>();
-		List<Node> openList = new ArrayList<Node>();
-		Map<Node, NodeToken> tokenMap = new HashMap<Node, NodeToken>();
+		CompiledGraph compiled = getCompiledGraph();
+		int startId = compiled.getId(start);
+		int destinationId = compiled.getId(destination);
+		if (startId < 0 || destinationId < 0) {
+			onAlgorithmStep("No Path found", null, true, false);
+			return;
+		}
 
-		tokenMap.put(start, new NodeToken(start, null, 0.0));
-		openList.add(start);
+		int nodeCount = compiled.getNodeCount();
+		double[] distances = new double[nodeCount];
+		int[] parentEdges = new int[nodeCount];
+		NodeSet closed = getVisitedNodes();
+		IndexedHeap openList = new IndexedHeap(nodeCount);
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		boolean landmarks = HEURISTIC_LANDMARKS.equals(getHeuristic());
+
+		distances[startId] = 0.0;
+		parentEdges[startId] = -1;
+		openList.insert(startId, 0.0);
 		addBackTrackingNode(start);
 
-		while (openList.size() > 0) {
-			Node current = removeMin(openList, tokenMap);
-			closedList.add(current);
+		while (!openList.isEmpty()) {
+			int current = openList.removeMin();
+			closed.add(current);
+			countSettledNode(false);
 
-			if (current.equals(destination)) {
-				onAlgorithmStep("Path Found", buildPath(tokenMap, current),
+			if (current == destinationId) {
+				onAlgorithmStep("Path Found", buildPath(current, parentEdges),
 						true, true);
 				return;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(current, parentEdges));
+				return;
+			}
 
-			for (Edge nextEdge : current.getEdges()) {
-				Node next = nextEdge.getDestination();
-				if (closedList.contains(next)) {
+			int last = compiled.getLastEdge(current);
+			for (int edge = compiled.getFirstEdge(current); edge < last; edge++) {
+				int next = compiled.getTarget(edge);
+				if (closed.contains(next)) {
 					continue;
 				}
 
-				double g = buildPath(tokenMap, current).getLength()
-						+ nextEdge.getLength();
-				double h = estimateDistance(next, destination);
-				double f = g + h;
-
-				if (tokenMap.containsKey(next)) {
-					if (tokenMap.get(next).value > f) {
-						NodeToken token = tokenMap.get(next);
-						token.value = f;
-						token.previousEdge = nextEdge;
+				double g = distances[current] + compiled.getWeight(edge);
+				if (openList.contains(next)) {
+					if (g < distances[next]) {
+						distances[next] = g;
+						parentEdges[next] = edge;
+						openList.decreaseKey(next, g
+								+ estimate(next, destinationId, landmarks));
 					}
 				} else {
-					NodeToken token = new NodeToken(next, nextEdge, f);
-					tokenMap.put(next, token);
-					openList.add(next);
-					addBackTrackingNode(next);
+					distances[next] = g;
+					parentEdges[next] = edge;
+					openList.insert(next, g + estimate(next, destinationId, landmarks));
+					addBackTrackingNode(compiled.getNode(next));
 				}
 
-				onAlgorithmStep("Step", buildPath(tokenMap, next), false, false);
+				if (isObserved()) {
+					onAlgorithmStep("Step", buildPath(next, parentEdges), false,
+							false);
+				}
 			}
 		}
 
 		onAlgorithmStep("No Path found", null, true, false);
 	}
 
-	private Path buildPath(Map<Node, NodeToken> tokenMap, Node current) {
-		Path path = new Path();
-
-		path.getPathSteps().add(new Path.PathStep(current, null));
-
-		NodeToken previous = tokenMap.get(current);
-		while (previous.previousEdge != null) {
-			path.getPathSteps().add(
-					0,
-					new Path.PathStep(previous.previousEdge.getSource(),
-							previous.previousEdge));
-			previous = tokenMap.get(previous.previousEdge.getSource());
-		}
-		return path;
-	}
-
-	private Node removeMin(List<Node> openList, Map<Node, NodeToken> tokenMap) {
-		double min = 0;
-		Node result = null;
-
-		for (Node node : openList) {
-			NodeToken token = tokenMap.get(node);
-			if ((result == null) || (token.value < min)) {
-				min = token.value;
-				result = node;
-			}
+	private double estimate(int current, int destination, boolean landmarks) {
+		if (landmarks) {
+			return estimateLowerBound(current, destination);
 		}
-
-		openList.remove(result);
-		return result;
+		return estimateDistance(current, destination);
 	}
 }
@@ -18,10 +18,12 @@
 package net.sf.pathfinder.algo;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import net.sf.pathfinder.PathFinder;
 import net.sf.pathfinder.help.HelpAttached;
+import net.sf.pathfinder.model.CompiledGraph;
 import net.sf.pathfinder.model.Coordinate;
 import net.sf.pathfinder.model.Edge;
 import net.sf.pathfinder.model.Graph;
@@ -29,6 +31,7 @@ import net.sf.pathfinder.model.Node;
 import net.sf.pathfinder.model.Path;
 import net.sf.pathfinder.util.ResourceManager;
 import net.sf.pathfinder.util.UIUtils;
+import net.sf.pathfinder.util.properties.PropertyInfo;
 import net.sf.pathfinder.util.properties.PropertySupport;
 
 
@@ -51,6 +54,16 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	protected final String HEURISTIC_AIRLINE = "Air Line";
 	protected final String HEURISTIC_LOWER_BOUND_ESTIMATE = "lower bound estimate";
 	protected final String HEURISTIC_DYN_PROG_PRINCIPLE = "dynamic programming principle";
+	protected final String HEURISTIC_LANDMARKS = "Landmarks (ALT)";
+
+	protected final String LANDMARK_COUNT = "Landmarks";
+	protected final String LANDMARK_COUNT_DESC = "Number of landmarks used for the landmark lower bounds";
+	protected final int LANDMARK_COUNT_DEFAULT = 8;
+	protected final int LANDMARK_COUNT_MAX = 32;
+	protected final String LANDMARK_SELECTION = "Landmark Selection";
+	protected final String LANDMARK_SELECTION_DESC = "<html><body>How the landmarks are selected:<br>"
+			+ "&nbsp;&nbsp;- farthest: each landmark is the node farthest away from the others<br>"
+			+ "&nbsp;&nbsp;- avoid: each landmark covers the region with the worst bounds</body></html>";
 
 	protected final String ORIENTATION_DIRECTION = "Orientation-Direction";
 	protected final String ORIENTATION_DIRECTION_DESC = "<html><body>Size of orientation-directions:<br>"
@@ -80,6 +93,12 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	protected final double CLIMBING_GRADIENT_FACTOR_DEFAULT = 0.015;
 	protected final int CLIMBING_SCALE_FACTOR_DEFAULT = 2;
 
+	protected final String TIME_BUDGET = "Time Budget";
+	protected final String TIME_BUDGET_DESC = "Maximum time of a calculation in milliseconds (0 equals unlimited)";
+	protected final int TIME_BUDGET_MAX = 3600000;
+	protected final String EXPANSION_BUDGET = "Expansion Budget";
+	protected final String EXPANSION_BUDGET_DESC = "Maximum number of nodes expanded by a calculation (0 equals unlimited)";
+
 	protected final String SEARCH_DEPTH = "search depth";
 	protected final int SEARCH_DEPTH_DEFAULT = 1000;
 
@@ -93,8 +112,26 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	private static List<AlgorithmDescriptor> algorithmList;
 
 	private AlgorithmListener listener;
+	private CompiledGraph compiledGraph;
+	private Landmarks landmarks;
 
 	private List<Node> backTrackingNodes = new ArrayList<Node>();
+	private NodeSet backTrackingSet = new NodeSet();
+	private boolean backTrackingDeferred;
+	private int reportedBackTrackingCount;
+	private NodeSet visitedNodes = new NodeSet();
+	private int forwardSettledCount;
+	private int backwardSettledCount;
+	private TraceLevel traceLevel = TraceLevel.FULL;
+	private int traceSampleRate = 100;
+	private long traceSampleInterval = 0;
+	private int untracedSteps;
+	private long lastTraceNanos;
+	private CancellationToken cancellationToken;
+	private boolean cancelled;
+	private int expandedCount;
+	private int expansionBudget;
+	private long deadlineNanos;
 	private String name;
 	private String helpRefId;
 
@@ -105,6 +142,16 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	 * Creates a new Algorithm
 	 */
 	public Algorithm() {
+		addProperty(new PropertyInfo(TIME_BUDGET,
+				TIME_BUDGET_DESC,
+				Integer.class,
+				new Object[] {PropertyInfo.RANGE, 0, TIME_BUDGET_MAX}),
+				0);
+		addProperty(new PropertyInfo(EXPANSION_BUDGET,
+				EXPANSION_BUDGET_DESC,
+				Integer.class,
+				new Object[] {PropertyInfo.RANGE, 0, Integer.MAX_VALUE}),
+				0);
 	}
 
 	/**
@@ -161,6 +208,31 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		}
 	}
 
+	/**
+	 * Creates a new instance of this algorithm with the same name, properties
+	 * and trace settings. Calculations running at the same time need their
+	 * own instances.
+	 * 
+	 * @return The copy
+	 */
+	public Algorithm copy() {
+		Algorithm copy;
+		try {
+			copy = getClass().getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalStateException("Copying the algorithm failed", e);
+		}
+		copy.name = name;
+		copy.helpRefId = helpRefId;
+		for (PropertyInfo propertyInfo : getPropertyInfos()) {
+			copy.setProperty(propertyInfo.getName(), getProperty(propertyInfo.getName()));
+		}
+		copy.traceLevel = traceLevel;
+		copy.traceSampleRate = traceSampleRate;
+		copy.traceSampleInterval = traceSampleInterval;
+		return copy;
+	}
+
 	/**
 	 * Finds the shortest way between the two specified nodes in the graph
 	 * 
@@ -180,7 +252,26 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		}
 		this.listener = listener;
 		this.backTrackingNodes.clear();
-		calculateRoute(graph, start, destination);
+		this.backTrackingDeferred = traceLevel == TraceLevel.FINAL_ONLY;
+		this.reportedBackTrackingCount = 0;
+		this.forwardSettledCount = 0;
+		this.backwardSettledCount = 0;
+		this.untracedSteps = 0;
+		this.lastTraceNanos = System.nanoTime();
+		this.cancelled = false;
+		this.expandedCount = 0;
+		this.expansionBudget = getExpansionBudget();
+		int timeBudget = getTimeBudget();
+		this.deadlineNanos = timeBudget > 0 ? lastTraceNanos + timeBudget * 1000000L : 0;
+		this.compiledGraph = graph.getCompiledGraph();
+		this.backTrackingSet.reset(compiledGraph);
+		this.visitedNodes.reset(compiledGraph);
+		try {
+			calculateRoute(graph, start, destination);
+		} finally {
+			this.compiledGraph = null;
+			this.landmarks = null;
+		}
 	}
 
 	/**
@@ -196,9 +287,33 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	protected abstract void calculateRoute(Graph graph, Node start,
 			Node destination);
 
+	/**
+	 * Gets the compiled snapshot of the graph the current calculation runs on.
+	 * Algorithms can search the snapshot by node and edge ids instead of walking
+	 * the {@link Node}/{@link Edge} objects.
+	 * 
+	 * @return The compiled graph, only available during a calculation
+	 */
+	protected CompiledGraph getCompiledGraph() {
+		return compiledGraph;
+	}
+
+	/**
+	 * Gets the set of visited nodes. The set is empty when a calculation
+	 * starts and is reused between calculations, so algorithms don't have to
+	 * allocate their own.
+	 * 
+	 * @return The visited nodes
+	 */
+	protected NodeSet getVisitedNodes() {
+		return visitedNodes;
+	}
+
 	/**
 	 * Invokes the {@link AlgorithmListener#algorithmStep(String, Path)} on the
-	 * registered listener
+	 * registered listener. A {@link BackTrackingListener} only gets the
+	 * backtracking nodes added since the previous step, other listeners get
+	 * all backtracking nodes in the path.
 	 * 
 	 * @param message
 	 *            Message for the current step
@@ -212,6 +327,18 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	protected void onAlgorithmStep(String message, Path currentPath,
 			boolean finished, boolean found) {
 		if (listener != null) {
+			if (backTrackingDeferred) {
+				backTrackingSet.addTo(backTrackingNodes);
+				backTrackingDeferred = false;
+			}
+			if (listener instanceof BackTrackingListener) {
+				List<Node> added = backTrackingNodes.subList(
+						reportedBackTrackingCount, backTrackingNodes.size());
+				reportedBackTrackingCount = backTrackingNodes.size();
+				((BackTrackingListener) listener).algorithmStep(message,
+						currentPath, added, finished, found);
+				return;
+			}
 			if (currentPath != null) {
 				currentPath.getBackTrackingNodes().clear();
 				currentPath.getBackTrackingNodes().addAll(backTrackingNodes);
@@ -221,15 +348,252 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 	}
 
 	/**
-	 * Adds a backtracking node
+	 * Indicates whether the next intermediate step of the current calculation
+	 * is observed. Algorithms call this once per step and only build the
+	 * intermediate path, if it returns true. The final step is always
+	 * reported, regardless of the {@link TraceLevel}.
+	 * 
+	 * @return True if a listener is registered and the trace level includes
+	 *         the step, otherwise false
+	 */
+	protected boolean isObserved() {
+		if (listener == null) {
+			return false;
+		}
+		switch (traceLevel) {
+		case FULL:
+			return true;
+		case SAMPLED:
+			untracedSteps++;
+			if (traceSampleRate > 0 && untracedSteps >= traceSampleRate) {
+				untracedSteps = 0;
+				lastTraceNanos = System.nanoTime();
+				return true;
+			}
+			if (traceSampleInterval > 0) {
+				long now = System.nanoTime();
+				if (now - lastTraceNanos >= traceSampleInterval * 1000000L) {
+					untracedSteps = 0;
+					lastTraceNanos = now;
+					return true;
+				}
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether the calculation has to stop, because it was cancelled,
+	 * the thread was interrupted or the time or expansion budget is exhausted,
+	 * and otherwise counts the node as expanded. Algorithms call this once per
+	 * node, after the goal test and right before the successors of the node
+	 * are generated, and report their best partial result with
+	 * {@link #onCancelled(Path)}, if it returns true.
+	 * 
+	 * @return True if the calculation has to stop, otherwise false
+	 */
+	protected boolean checkCancelled() {
+		if ((cancellationToken != null && cancellationToken.isCancelled())
+				|| (expansionBudget > 0 && expandedCount >= expansionBudget)
+				|| (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0)
+				|| Thread.currentThread().isInterrupted()) {
+			cancelled = true;
+		}
+		if (!cancelled)
+			expandedCount++;
+		return cancelled;
+	}
+
+	/**
+	 * Gets a token for the preprocessing a calculation waits for, like the
+	 * contraction hierarchy or the landmarks of the graph. It reports the
+	 * cancellation token, the time budget and the interruption of the
+	 * calculating thread; the expansion budget only counts the nodes expanded
+	 * by the query itself. Preprocessing that is stopped by the token is not
+	 * kept, the algorithm has to mark the calculation as cancelled with
+	 * {@link #onPreprocessingCancelled()}.
+	 * 
+	 * @return The token, it can be checked from any thread
+	 */
+	protected CancellationToken getPreprocessingToken() {
+		return new PreprocessingToken(cancellationToken, deadlineNanos, Thread.currentThread());
+	}
+
+	/**
+	 * Marks the calculation as cancelled after the preprocessing was stopped
+	 * by the token of {@link #getPreprocessingToken()}
+	 */
+	protected void onPreprocessingCancelled() {
+		cancelled = true;
+	}
+
+	/**
+	 * Reports the final step of a cancelled calculation
+	 * 
+	 * @param partialPath
+	 *            The best path the algorithm found so far, it does not reach
+	 *            the destination
+	 */
+	protected void onCancelled(Path partialPath) {
+		onAlgorithmStep("Calculation cancelled", partialPath, true, false);
+	}
+
+	/**
+	 * Indicates whether the last calculation was stopped before it finished,
+	 * see {@link #checkCancelled()}. The result of such a calculation is not
+	 * the shortest one.
+	 * 
+	 * @return True if the calculation was cancelled, otherwise false
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Gets the number of nodes expanded by the last calculation
+	 * 
+	 * @return The number of expanded nodes
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * Gets the token checked for the cancellation of the calculations
+	 * 
+	 * @return The cancellation token, may be null
+	 */
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+
+	/**
+	 * Sets the token checked for the cancellation of the calculations
+	 * 
+	 * @param cancellationToken
+	 *            The cancellation token, null if the calculations can only be
+	 *            stopped by the budgets
+	 */
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * Gets the trace level of the calculations
+	 * 
+	 * @return The trace level
+	 */
+	public TraceLevel getTraceLevel() {
+		return traceLevel;
+	}
+
+	/**
+	 * Sets which steps of the calculations are reported to the listener
+	 * 
+	 * @param traceLevel
+	 *            The trace level
+	 */
+	public void setTraceLevel(TraceLevel traceLevel) {
+		this.traceLevel = traceLevel == null ? TraceLevel.FULL : traceLevel;
+	}
+
+	/**
+	 * Gets the number of steps per reported step in {@link TraceLevel#SAMPLED}
+	 * mode
+	 * 
+	 * @return The sample rate, 0 if steps are only sampled by time
+	 */
+	public int getTraceSampleRate() {
+		return traceSampleRate;
+	}
+
+	/**
+	 * Sets the number of steps per reported step in
+	 * {@link TraceLevel#SAMPLED} mode
+	 * 
+	 * @param traceSampleRate
+	 *            Every n-th step is reported, 0 to sample only by time
+	 */
+	public void setTraceSampleRate(int traceSampleRate) {
+		this.traceSampleRate = Math.max(0, traceSampleRate);
+	}
+
+	/**
+	 * Gets the minimum time between two reported steps in
+	 * {@link TraceLevel#SAMPLED} mode
+	 * 
+	 * @return The interval in milliseconds, 0 if steps are only sampled by
+	 *         count
+	 */
+	public long getTraceSampleInterval() {
+		return traceSampleInterval;
+	}
+
+	/**
+	 * Sets the time after which the next step is reported in
+	 * {@link TraceLevel#SAMPLED} mode, even if the sample rate is not reached
+	 * 
+	 * @param traceSampleInterval
+	 *            The interval in milliseconds, 0 to sample only by count
+	 */
+	public void setTraceSampleInterval(long traceSampleInterval) {
+		this.traceSampleInterval = Math.max(0, traceSampleInterval);
+	}
+
+	/**
+	 * Adds a backtracking node. In {@link TraceLevel#FINAL_ONLY} mode the
+	 * node is only marked, the list of backtracking nodes is collected when
+	 * a step is reported.
 	 * @param node The node
 	 */
 	protected void addBackTrackingNode(Node node) {
-		if (!backTrackingNodes.contains(node)) {
+		if (backTrackingSet.add(node) && !backTrackingDeferred) {
 			backTrackingNodes.add(node);
 		}
 	}
 
+	/**
+	 * Counts a node, whose distance is final
+	 * @param backward True if the node was settled by the backward search of a
+	 *            bidirectional algorithm, false otherwise
+	 */
+	protected void countSettledNode(boolean backward) {
+		if (backward) {
+			backwardSettledCount++;
+		} else {
+			forwardSettledCount++;
+		}
+	}
+
+	/**
+	 * Indicates whether the algorithm settles nodes, i.e. finalizes their
+	 * distance, and counts them with {@link #countSettledNode(boolean)}
+	 * @return True for label-setting algorithms, otherwise false
+	 */
+	public boolean isSettlingNodes() {
+		return false;
+	}
+
+	/**
+	 * Gets the number of nodes settled by the (forward) search of the last
+	 * calculation
+	 * @return The number of settled nodes, 0 if the algorithm does not settle nodes
+	 */
+	public int getForwardSettledCount() {
+		return forwardSettledCount;
+	}
+
+	/**
+	 * Gets the number of nodes settled by the backward search of the last
+	 * calculation
+	 * @return The number of settled nodes, 0 for unidirectional algorithms
+	 */
+	public int getBackwardSettledCount() {
+		return backwardSettledCount;
+	}
+
 	/**
 	 * Gets a list of available algorithms
 	 * 
@@ -305,6 +669,22 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		}
 	}
 
+	protected int getTimeBudget() {
+		if (getProperty(TIME_BUDGET) instanceof Integer) {
+			return (Integer) getProperty(TIME_BUDGET);
+		} else {
+			return 0;
+		}
+	}
+
+	protected int getExpansionBudget() {
+		if (getProperty(EXPANSION_BUDGET) instanceof Integer) {
+			return (Integer) getProperty(EXPANSION_BUDGET);
+		} else {
+			return 0;
+		}
+	}
+
 	protected int getSearchDepth() {
 		if (getProperty(SEARCH_DEPTH) instanceof Integer) {
 			return (Integer) getProperty(SEARCH_DEPTH);
@@ -358,6 +738,112 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		return current.getCoordinate().distance(destination.getCoordinate());
 	}
 
+	protected int getLandmarkCount() {
+		if (getProperty(LANDMARK_COUNT) instanceof Integer) {
+			return (Integer) getProperty(LANDMARK_COUNT);
+		} else {
+			return LANDMARK_COUNT_DEFAULT;
+		}
+	}
+
+	protected String getLandmarkSelection() {
+		if (getProperty(LANDMARK_SELECTION) instanceof String) {
+			return (String) getProperty(LANDMARK_SELECTION);
+		} else {
+			return Landmarks.SELECTION_FARTHEST;
+		}
+	}
+
+	/**
+	 * Adds the properties used to configure the landmarks
+	 */
+	protected void addLandmarkProperties() {
+		addProperty(new PropertyInfo(LANDMARK_COUNT,
+				LANDMARK_COUNT_DESC,
+				Integer.class,
+				new Object[] {PropertyInfo.RANGE, 1, LANDMARK_COUNT_MAX}),
+				LANDMARK_COUNT_DEFAULT);
+		addProperty(new PropertyInfo(LANDMARK_SELECTION,
+				LANDMARK_SELECTION_DESC,
+				String.class,
+				new String[] {Landmarks.SELECTION_FARTHEST, Landmarks.SELECTION_AVOID}),
+				Landmarks.SELECTION_FARTHEST);
+	}
+
+	/**
+	 * Gets the landmarks of the graph of the current calculation, selected as
+	 * configured by the landmark properties. The landmarks are computed once
+	 * per graph and configuration.
+	 * 
+	 * @return The landmarks or null, if the calculation was cancelled before
+	 *         they were computed
+	 */
+	protected Landmarks getLandmarks() {
+		if (landmarks == null && !cancelled) {
+			landmarks = Landmarks.getInstance(compiledGraph, getLandmarkCount(),
+					getLandmarkSelection(), getPreprocessingToken());
+			if (landmarks == null) {
+				onPreprocessingCancelled();
+			}
+		}
+		return landmarks;
+	}
+
+	/**
+	 * Calculates a lower bound of the distance between the two specified nodes
+	 * of the compiled graph: the larger one of the air line distance and the
+	 * landmark bound. Only the air line distance is used, if the landmarks
+	 * were not computed because the calculation was cancelled.
+	 * 
+	 * @param current
+	 *            Id of the current node
+	 * @param destination
+	 *            Id of the destination node
+	 * @return The lower bound
+	 */
+	protected double estimateLowerBound(int current, int destination) {
+		Landmarks landmarks = getLandmarks();
+		if (landmarks == null) {
+			return estimateDistance(current, destination);
+		}
+		return Math.max(estimateDistance(current, destination),
+				landmarks.lowerBound(current, destination));
+	}
+
+	/**
+	 * Calculates a lower bound of the distance between the two specified
+	 * nodes, see {@link #estimateLowerBound(int, int)}
+	 * 
+	 * @param current
+	 *            Current node
+	 * @param destination
+	 *            Destination node
+	 * @return The lower bound
+	 */
+	protected double estimateLowerBound(Node current, Node destination) {
+		int currentId = compiledGraph.getId(current);
+		int destinationId = compiledGraph.getId(destination);
+		if (currentId < 0 || destinationId < 0) {
+			return estimateDistance(current, destination);
+		}
+		return estimateLowerBound(currentId, destinationId);
+	}
+
+	/**
+	 * Estimates the distance between the two specified nodes of the compiled
+	 * graph
+	 * 
+	 * @param current
+	 *            Id of the current node
+	 * @param destination
+	 *            Id of the destination node
+	 * @return The estimated distance
+	 */
+	protected double estimateDistance(int current, int destination) {
+		return estimateDistance(compiledGraph.getNode(current), compiledGraph
+				.getNode(destination));
+	}
+
 	/**
 	 * Gets the orientation of two nodes
 	 * 
@@ -458,6 +944,34 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		return path;
 	}
 
+	/**
+	 * Build the path to a node of the compiled graph, following the
+	 * specified parent edges back to the start node.
+	 * 
+	 * @param node
+	 *            Id of the last node of the path
+	 * @param parentEdges
+	 *            Id of the edge each node was reached with, -1 for the start
+	 *            node
+	 * @return result Path
+	 */
+	protected Path buildPath(int node, int[] parentEdges) {
+		Path path = new Path();
+		List<Path.PathStep> steps = path.getPathSteps();
+
+		steps.add(new Path.PathStep(compiledGraph.getNode(node), null));
+		int edge = parentEdges[node];
+		while (edge >= 0) {
+			int source = compiledGraph.getSource(edge);
+			steps.add(new Path.PathStep(compiledGraph.getNode(source),
+					compiledGraph.getEdge(edge)));
+			edge = parentEdges[source];
+		}
+		Collections.reverse(steps);
+
+		return path;
+	}
+
 	/**
 	 * Calculates the grade of the given node, depending on the
 	 * global-destination-distance
@@ -505,11 +1019,21 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		return result;
 	}
 
+	/**
+	 * A node reached by a search, linked to the token it was reached from.
+	 * The tokens form a parent-pointer tree that is only turned into a
+	 * {@link Path} by {@link Algorithm#buildPath(NodeToken)} when a path is
+	 * actually needed.
+	 */
 	protected class NodeToken implements Comparable<NodeToken> {
 		public Node currentNode;
 		public Edge previousEdge;
 		public NodeToken prevNodeToken;
 		public double value;
+		/**
+		 * The length of the path from the start node to this token
+		 */
+		public double cost;
 
 		public NodeToken(Node currentNode, Edge previousEdge) {
 			this(currentNode, previousEdge, null, 0.0);
@@ -530,6 +1054,9 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 			this.previousEdge = previousEdge;
 			this.prevNodeToken = prevNodeToken;
 			this.value = value;
+			if (prevNodeToken != null) {
+				this.cost = prevNodeToken.cost + previousEdge.getLength();
+			}
 		}
 
 		@Override
@@ -547,6 +1074,31 @@ public abstract class Algorithm extends PropertySupport implements HelpAttached
 		NORTH, NORTHWEST, WEST, SOUTHWEST, SOUTH, SOUTHEAST, EAST, NORTHEAST
 	}
 
+	/**
+	 * Checks the stop conditions of a calculation, except the expansion
+	 * budget, from the threads of a preprocessing step
+	 */
+	private static class PreprocessingToken extends CancellationToken {
+		private final CancellationToken cancellationToken;
+		private final long deadlineNanos;
+		private final Thread thread;
+
+		public PreprocessingToken(CancellationToken cancellationToken,
+				long deadlineNanos, Thread thread) {
+			this.cancellationToken = cancellationToken;
+			this.deadlineNanos = deadlineNanos;
+			this.thread = thread;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return super.isCancelled()
+					|| (cancellationToken != null && cancellationToken.isCancelled())
+					|| (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0)
+					|| thread.isInterrupted();
+		}
+	}
+
 	private static class Vector {
 		public double x;
 		public double y;
@@ -0,0 +1,143 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.PathStatistics;
+
+/**
+ * Runs several algorithms on the same route at the same time. Every algorithm
+ * gets its own instance and {@link PathCalculation}; the calculations are
+ * queued as {@link CalculationPriority#BATCH} queries in a
+ * {@link CalculationScheduler}.
+ */
+public class AlgorithmComparison extends Thread {
+
+	private final List<AlgorithmDescriptor> descriptors;
+	private final Graph graph;
+	private final Node start;
+	private final Node destination;
+	private final ComparisonListener comparisonListener;
+	private CalculationScheduler scheduler = CalculationScheduler.getDefault();
+	private boolean running = false;
+	private final List<PathCalculation> calculations = new Vector<PathCalculation>();
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Creates a new comparison
+	 * @param descriptors The algorithms to run
+	 * @param graph The graph
+	 * @param start The start node
+	 * @param destination The destination node
+	 * @param comparisonListener Listener notified when all algorithms have
+	 *            finished
+	 */
+	public AlgorithmComparison(List<AlgorithmDescriptor> descriptors, Graph graph, Node start,
+			Node destination, ComparisonListener comparisonListener) {
+		this.descriptors = new ArrayList<AlgorithmDescriptor>(descriptors);
+		this.graph = graph;
+		this.start = start;
+		this.destination = destination;
+		this.comparisonListener = comparisonListener;
+	}
+
+	/**
+	 * Sets the scheduler running the calculations
+	 * @param scheduler The scheduler, {@link CalculationScheduler#getDefault()}
+	 *            by default
+	 */
+	public void setScheduler(CalculationScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public void run() {
+		running = true;
+		List<PathStatistics> results = new ArrayList<PathStatistics>();
+		try {
+			List<Future<PathStatistics>> futures = new ArrayList<Future<PathStatistics>>();
+			List<PathCalculation> submitted = new ArrayList<PathCalculation>();
+			for (AlgorithmDescriptor descriptor : descriptors) {
+				Algorithm algorithm = Algorithm.newInstance(descriptor);
+				if (algorithm == null) {
+					continue;
+				}
+				PathCalculation calculation = new PathCalculation(algorithm, graph, start,
+						destination, new CalculationListener() {
+							@Override
+							public void calculationCompleted(PathCalculation source, PathStatistics result) {
+							}
+						});
+				calculations.add(calculation);
+				if (cancelled) {
+					calculation.cancel();
+				}
+				try {
+					futures.add(scheduler.submit(calculation, CalculationPriority.BATCH));
+					submitted.add(calculation);
+				} catch (RejectedExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (CancellationException e) {
+					PathStatistics statistics = submitted.get(i).getStatistics();
+					statistics.setComplete(false);
+					results.add(statistics);
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+				}
+			}
+		} catch (InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+		} finally {
+			running = false;
+		}
+		comparisonListener.comparisonCompleted(this, results);
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Cancels all calculations of the comparison, see
+	 * {@link PathCalculation#cancel()}
+	 */
+	public void cancel() {
+		cancelled = true;
+		synchronized (calculations) {
+			for (PathCalculation calculation : calculations) {
+				calculation.cancel();
+			}
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.List;
+
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+
+/**
+ * An {@link AlgorithmListener} that keeps the backtracking nodes of the steps
+ * itself. Instead of copying all backtracking nodes into the path of every
+ * step, the algorithm only passes the nodes added since the previous step.
+ */
+public interface BackTrackingListener extends AlgorithmListener {
+
+	/**
+	 * Is called for each calculation step
+	 * @param message The message desribing the current step
+	 * @param currentPath The currently calculated path, its backtracking
+	 * nodes are not set
+	 * @param addedBackTrackingNodes The backtracking nodes added since the
+	 * previous step, the list is only valid during the call
+	 * @param finished True if the calculation is finished, false otherwise
+	 * @param found True if a path was found, false otherwise
+	 */
+	void algorithmStep(String message, Path currentPath,
+			List<Node> addedBackTrackingNodes, boolean finished, boolean found);
+}
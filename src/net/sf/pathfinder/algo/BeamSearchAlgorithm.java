@@ -98,7 +98,7 @@ public class BeamSearchAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean beamSearch(Graph graph, Node start, Node goal) {
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Queue<NodeToken> queue = new LinkedList<NodeToken>();
 		Orientation currentGoalOrientation;
 		
@@ -112,8 +112,13 @@ public class BeamSearchAlgorithm extends Algorithm {
 				onAlgorithmStep("Path found", buildPath(new NodeToken(currentNodeToken.currentNode, currentNodeToken.previousEdge, currentNodeToken.prevNodeToken, 0)), true, true);
 				return true;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
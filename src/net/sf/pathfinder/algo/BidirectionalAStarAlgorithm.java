@@ -0,0 +1,40 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Bidirectional A*. Both searches are guided by the average of the air line
+ * distance to the destination and the air line distance from the start,
+ * <code>p(v) = (h(v, t) - h(s, v)) / 2</code>. Other than the plain
+ * estimates, the average potential is the same for both directions, so the
+ * stopping criterion of the bidirectional Dijkstra still holds.
+ */
+public class BidirectionalAStarAlgorithm extends BidirectionalSearchAlgorithm {
+
+	/**
+	 * Creates a new bidirectional A* instance
+	 */
+	public BidirectionalAStarAlgorithm() {
+	}
+
+	@Override
+	protected double potential(int node) {
+		return (estimateDistance(node, getDestinationId()) - estimateDistance(
+				getStartId(), node)) / 2.0;
+	}
+}
@@ -0,0 +1,37 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Bidirectional Dijkstra: a Dijkstra search from the start node and one from
+ * the destination node, which stop when their queue keys together reach the
+ * shortest path found so far.
+ */
+public class BidirectionalDijkstraAlgorithm extends BidirectionalSearchAlgorithm {
+
+	/**
+	 * Creates a new bidirectional Dijkstra instance
+	 */
+	public BidirectionalDijkstraAlgorithm() {
+	}
+
+	@Override
+	protected double potential(int node) {
+		return 0.0;
+	}
+}
@@ -0,0 +1,230 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.IndexedHeap;
+
+/**
+ * Base for bidirectional label-setting searches. A forward search from the
+ * start node over the outgoing edges and a backward search from the
+ * destination over the incoming edges run alternately, always the side with
+ * the smaller queue key goes next.
+ * <p>
+ * Both searches work on edge lengths reduced by a {@link #potential(int)}:
+ * the forward key of a node is <code>d_f(v) + p(v)</code>, the backward key
+ * <code>d_b(v) - p(v)</code>. As long as the potential is consistent, the
+ * shortest path found so far (<code>mu</code>) is optimal once the sum of the
+ * two smallest keys reaches <code>mu</code>.
+ * </p>
+ */
+public abstract class BidirectionalSearchAlgorithm extends Algorithm {
+
+	private int startId;
+	private int destinationId;
+
+	/**
+	 * Finds the shortest way between the two specified nodes in the graph
+	 * 
+	 * @param graph
+	 *            Graph to use for calculation
+	 * @param start
+	 *            Start node for the path
+	 * @param destination
+	 *            Destination node for the path
+	 */
+	@Override
+	public boolean isSettlingNodes() {
+		return true;
+	}
+
+	@Override
+	protected void calculateRoute(Graph graph, Node start, Node destination) {
+		CompiledGraph compiled = getCompiledGraph();
+		startId = compiled.getId(start);
+		destinationId = compiled.getId(destination);
+		if (startId < 0 || destinationId < 0) {
+			onAlgorithmStep("No Path found", null, true, false);
+			return;
+		}
+
+		int nodeCount = compiled.getNodeCount();
+		double[] forwardDistances = new double[nodeCount];
+		double[] backwardDistances = new double[nodeCount];
+		int[] forwardParents = new int[nodeCount];
+		int[] backwardParents = new int[nodeCount];
+		double[] potentials = new double[nodeCount];
+		boolean[] forwardSettled = new boolean[nodeCount];
+		boolean[] backwardSettled = new boolean[nodeCount];
+		IndexedHeap forwardQueue = new IndexedHeap(nodeCount);
+		IndexedHeap backwardQueue = new IndexedHeap(nodeCount);
+		Arrays.fill(forwardDistances, Double.POSITIVE_INFINITY);
+		Arrays.fill(backwardDistances, Double.POSITIVE_INFINITY);
+		Arrays.fill(potentials, Double.NaN);
+
+		forwardDistances[startId] = 0.0;
+		forwardParents[startId] = -1;
+		forwardQueue.insert(startId, potential(startId, potentials));
+		backwardDistances[destinationId] = 0.0;
+		backwardParents[destinationId] = -1;
+		backwardQueue.insert(destinationId, -potential(destinationId, potentials));
+		addBackTrackingNode(start);
+		addBackTrackingNode(destination);
+
+		double best = startId == destinationId ? 0.0 : Double.POSITIVE_INFINITY;
+		int meetingNode = startId == destinationId ? startId : -1;
+
+		while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+			if (forwardQueue.peekKey() + backwardQueue.peekKey() >= best) {
+				break;
+			}
+
+			boolean backward = backwardQueue.peekKey() < forwardQueue.peekKey();
+			IndexedHeap queue = backward ? backwardQueue : forwardQueue;
+			double[] distances = backward ? backwardDistances : forwardDistances;
+			double[] otherDistances = backward ? forwardDistances : backwardDistances;
+			int[] parents = backward ? backwardParents : forwardParents;
+			boolean[] settled = backward ? backwardSettled : forwardSettled;
+			double sign = backward ? -1.0 : 1.0;
+
+			int current = queue.removeMin();
+			settled[current] = true;
+			countSettledNode(backward);
+			if (checkCancelled()) {
+				if (meetingNode < 0) {
+					onCancelled(backward ? buildBackwardPath(current, backwardParents)
+							: buildPath(current, forwardParents));
+					return;
+				}
+				// the best path found so far is reported, it may not be the shortest
+				break;
+			}
+
+			int first = backward ? compiled.getFirstReverseEdge(current)
+					: compiled.getFirstEdge(current);
+			int last = backward ? compiled.getLastReverseEdge(current)
+					: compiled.getLastEdge(current);
+			for (int i = first; i < last; i++) {
+				int edge = backward ? compiled.getReverseEdge(i) : i;
+				int next = backward ? compiled.getSource(edge) : compiled
+						.getTarget(edge);
+				if (settled[next]) {
+					continue;
+				}
+
+				double distance = distances[current] + compiled.getWeight(edge);
+				if (distance < distances[next]) {
+					if (distances[next] == Double.POSITIVE_INFINITY) {
+						addBackTrackingNode(compiled.getNode(next));
+					}
+					distances[next] = distance;
+					parents[next] = edge;
+					queue.insertOrDecrease(next, distance + sign
+							* potential(next, potentials));
+
+					if (distance + otherDistances[next] < best) {
+						best = distance + otherDistances[next];
+						meetingNode = next;
+					}
+				}
+			}
+
+			if (isObserved()) {
+				onAlgorithmStep(backward ? "Backward Step" : "Forward Step",
+						backward ? buildBackwardPath(current, backwardParents)
+								: buildPath(current, forwardParents), false, false);
+			}
+		}
+
+		if (meetingNode < 0) {
+			onAlgorithmStep("No Path found", null, true, false);
+			return;
+		}
+
+		Path path = buildPath(meetingNode, forwardParents);
+		List<Path.PathStep> steps = path.getPathSteps();
+		steps.remove(steps.size() - 1);
+		steps.addAll(buildBackwardPath(meetingNode, backwardParents).getPathSteps());
+		onAlgorithmStep("Path Found", path, true, true);
+	}
+
+	/**
+	 * Gets the id of the start node of the current calculation
+	 * @return The start node id
+	 */
+	protected int getStartId() {
+		return startId;
+	}
+
+	/**
+	 * Gets the id of the destination node of the current calculation
+	 * @return The destination node id
+	 */
+	protected int getDestinationId() {
+		return destinationId;
+	}
+
+	/**
+	 * Calculates the potential of a node. The forward search adds the potential
+	 * to its keys, the backward search subtracts it. To find the shortest path,
+	 * the potential must be consistent, that is
+	 * <code>p(w) - p(v)</code> must not be greater than the length of any edge
+	 * from <code>v</code> to <code>w</code>.
+	 * @param node The node id
+	 * @return The potential
+	 */
+	protected abstract double potential(int node);
+
+	private double potential(int node, double[] potentials) {
+		if (Double.isNaN(potentials[node])) {
+			potentials[node] = potential(node);
+		}
+		return potentials[node];
+	}
+
+	/**
+	 * Builds the path from a node to the destination, following the parent
+	 * edges of the backward search
+	 * @param node Id of the first node of the path
+	 * @param parentEdges Id of the edge leaving each node towards the
+	 *            destination, -1 for the destination
+	 * @return The path
+	 */
+	private Path buildBackwardPath(int node, int[] parentEdges) {
+		CompiledGraph compiled = getCompiledGraph();
+		Path path = new Path();
+		List<Path.PathStep> steps = path.getPathSteps();
+
+		int edge = parentEdges[node];
+		while (edge >= 0) {
+			steps.add(new Path.PathStep(compiled.getNode(node), compiled
+					.getEdge(edge)));
+			node = compiled.getTarget(edge);
+			edge = parentEdges[node];
+		}
+		steps.add(new Path.PathStep(compiled.getNode(node), null));
+
+		return path;
+	}
+}
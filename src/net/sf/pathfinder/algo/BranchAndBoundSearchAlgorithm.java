@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Stack;
 
+import net.sf.pathfinder.model.CompiledGraph;
 import net.sf.pathfinder.model.Edge;
 import net.sf.pathfinder.model.Graph;
 import net.sf.pathfinder.model.Node;
@@ -34,8 +35,9 @@ public class BranchAndBoundSearchAlgorithm extends Algorithm {
 		addProperty(new PropertyInfo(HEURISTIC, 
 				HEURISTIC_DESC,
 				String.class,
-				new String[] {HEURISTIC_NONE, HEURISTIC_LOWER_BOUND_ESTIMATE, HEURISTIC_DYN_PROG_PRINCIPLE, "both" }),
+				new String[] {HEURISTIC_NONE, HEURISTIC_LOWER_BOUND_ESTIMATE, HEURISTIC_DYN_PROG_PRINCIPLE, "both", HEURISTIC_LANDMARKS }),
 				HEURISTIC_NONE);
+		addLandmarkProperties();
 		addProperty(new PropertyInfo(STORAGE_LIMIT,
 				STORAGE_LIMIT_DESC,
 				Integer.class,
@@ -69,12 +71,21 @@ public class BranchAndBoundSearchAlgorithm extends Algorithm {
 	 */
 	private boolean depthSearchFirst(Node start, Node goal) {
 
-		List<Node> visitedNodes = new ArrayList<Node>();
-		Stack<NodeToken> stack = new Stack<NodeToken>();
+		NodeSet visitedNodes = getVisitedNodes();
+		CompiledGraph compiled = getCompiledGraph();
+		String heuristic = getHeuristic();
+		boolean dynamicProgramming = heuristic.equals(HEURISTIC_DYN_PROG_PRINCIPLE) || heuristic.equals("both");
+		Stack<StackEntry> stack = new Stack<StackEntry>();
+		// the tokens on the stack per node id, only for the dynamic programming principle
+		StackEntry[] stackEntries = dynamicProgramming ? new StackEntry[compiled.getNodeCount()] : null;
 		
-		stack.push(new NodeToken(start, null, null, 0));
+		push(stack, stackEntries, new NodeToken(start, null, null, 0));
 		while (!stack.isEmpty()) {
-			NodeToken currentNodeToken = stack.pop();
+			StackEntry entry = stack.pop();
+			if (entry.removed)
+				continue;
+			unlink(stackEntries, entry);
+			NodeToken currentNodeToken = entry.token;
 			if (visitedNodes.contains(currentNodeToken.currentNode))
 				continue;
 			visitedNodes.add(currentNodeToken.currentNode);
@@ -83,31 +94,39 @@ public class BranchAndBoundSearchAlgorithm extends Algorithm {
 						currentNodeToken.prevNodeToken)), true, true);
 				return true;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
 			for (Edge edge : currentNodeToken.currentNode.getEdges()) {
 				Node next = edge.getDestination();
-				double value = buildPath(new NodeToken(next, edge, currentNodeToken)).getLength();
-				String heuristic = getHeuristic();
+				NodeToken nt = new NodeToken(next, edge, currentNodeToken);
+				nt.value = nt.cost;
 				if ( heuristic.equals(HEURISTIC_LOWER_BOUND_ESTIMATE) || heuristic.equals("both") )
-					value += estimateDistance(next, goal);
-				NodeToken nt = new NodeToken(next, edge, currentNodeToken, value);
+					nt.value += estimateDistance(next, goal);
+				else if ( heuristic.equals(HEURISTIC_LANDMARKS) )
+					nt.value += estimateLowerBound(next, goal);
 				
-				if ( heuristic.equals(HEURISTIC_DYN_PROG_PRINCIPLE) || heuristic.equals("both") ) { 
-					int toDel = -1;
+				if (dynamicProgramming) { 
+					StackEntry toDel = null;
 					boolean doAdd = true;
-					for (int i=0 ; i<stack.size() ; i++) {
-						if (nt.currentNode.equals(stack.get(i).currentNode)) {
-							if (stack.get(i).value > nt.value)
-								toDel = i;
-							else 
-								doAdd = false;
+					for (StackEntry onStack = getStackEntry(stackEntries, next); onStack != null; onStack = onStack.nextOfNode) {
+						if (onStack.token.value > nt.value) {
+							if (toDel == null || onStack.index > toDel.index)
+								toDel = onStack;
+						} else {
+							doAdd = false;
 						}
 					}
-					if (toDel >= 0) 
-						stack.remove(toDel);
+					if (toDel != null) {
+						toDel.removed = true;
+						unlink(stackEntries, toDel);
+					}
 					if (doAdd)
 						tmpList.add(nt);
 				} else {
@@ -117,18 +136,80 @@ public class BranchAndBoundSearchAlgorithm extends Algorithm {
 			
 			if (getStorageSize() == 0) {
 				for (NodeToken nodeToken : tmpList) 
-					stack.push(nodeToken);
+					push(stack, stackEntries, nodeToken);
 			} else {
 				for (int i=0 ; i<getStorageSize() && i<tmpList.size() ; i++)
-					stack.push(tmpList.get(i));
+					push(stack, stackEntries, tmpList.get(i));
 			}
 			
 			//sort NodeToken.value
 			Collections.sort(stack);
 			//reverse because stack (LIFO) > bring shortest to front
 			Collections.reverse(stack);
+			if (dynamicProgramming) {
+				for (int i=0 ; i<stack.size() ; i++)
+					stack.get(i).index = i;
+			}
 		}
 	
 		return false;
 	}
+
+	private void push(Stack<StackEntry> stack, StackEntry[] stackEntries, NodeToken token) {
+		StackEntry entry = new StackEntry(token);
+		stack.push(entry);
+		if (stackEntries == null)
+			return;
+		int id = getCompiledGraph().getId(token.currentNode);
+		if (id >= 0) {
+			entry.nextOfNode = stackEntries[id];
+			stackEntries[id] = entry;
+		}
+	}
+
+	private StackEntry getStackEntry(StackEntry[] stackEntries, Node node) {
+		int id = getCompiledGraph().getId(node);
+		return id >= 0 ? stackEntries[id] : null;
+	}
+
+	private void unlink(StackEntry[] stackEntries, StackEntry entry) {
+		if (stackEntries == null)
+			return;
+		int id = getCompiledGraph().getId(entry.token.currentNode);
+		if (id < 0)
+			return;
+		if (stackEntries[id] == entry) {
+			stackEntries[id] = entry.nextOfNode;
+			return;
+		}
+		for (StackEntry previous = stackEntries[id]; previous != null; previous = previous.nextOfNode) {
+			if (previous.nextOfNode == entry) {
+				previous.nextOfNode = entry.nextOfNode;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A token on the stack, linked with the other tokens of its node. Tokens
+	 * replaced by the dynamic programming principle are only marked as
+	 * removed and skipped when they come up, so the order of the remaining
+	 * tokens is the same as if they were taken off the stack.
+	 */
+	private static class StackEntry implements Comparable<StackEntry> {
+		private final NodeToken token;
+		private StackEntry nextOfNode;
+		// position on the stack after the last sort
+		private int index;
+		private boolean removed;
+
+		StackEntry(NodeToken token) {
+			this.token = token;
+		}
+
+		@Override
+		public int compareTo(StackEntry o) {
+			return token.compareTo(o.token);
+		}
+	}
 }
@@ -68,7 +68,7 @@ public class BreadthFirstSearchAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean breadthFirstSearch(Node start, Node goal) {
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Queue<NodeToken> queue = new LinkedList<NodeToken>();
 		
 		queue.add(new NodeToken(start, null, null));
@@ -80,8 +80,13 @@ public class BreadthFirstSearchAlgorithm extends Algorithm {
 				onAlgorithmStep("Path found", buildPath(new NodeToken(currentNodeToken.currentNode, currentNodeToken.previousEdge, currentNodeToken.prevNodeToken)), true, true);
 				return true;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
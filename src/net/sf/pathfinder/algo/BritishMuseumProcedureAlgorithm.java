@@ -17,9 +17,7 @@
 
 package net.sf.pathfinder.algo;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
 import java.util.Stack;
 
@@ -63,8 +61,8 @@ public class BritishMuseumProcedureAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean britishMuseumProcedure(Node start, Node goal) {
-		List<Node> visitedNodes = new ArrayList<Node>();
-		List<Path> pathList = new ArrayList<Path>();
+		NodeSet visitedNodes = getVisitedNodes();
+		NodeToken bestToken = null;
 		Queue<NodeToken> queue = new LinkedList<NodeToken>();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		
@@ -82,13 +80,22 @@ public class BritishMuseumProcedureAlgorithm extends Algorithm {
 			if (visitedNodes.contains(currentNodeToken.currentNode))
 				continue; 
 			if (currentNodeToken.currentNode.equals(goal)) {
-				Path path = buildPath(new NodeToken(currentNodeToken.currentNode, currentNodeToken.previousEdge, currentNodeToken.prevNodeToken));
-				onAlgorithmStep("Possible Path", path, false, true);
-				pathList.add(path);
+				if (isObserved())
+					onAlgorithmStep("Possible Path", buildPath(currentNodeToken), false, true);
+				if (bestToken == null || currentNodeToken.cost < bestToken.cost)
+					bestToken = currentNodeToken;
 				continue;
 			}
+			if (checkCancelled()) {
+				if (bestToken != null)
+					onAlgorithmStep("Calculation cancelled", buildPath(bestToken), true, true);
+				else
+					onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			for (Edge edge : currentNodeToken.currentNode.getEdges()) {
@@ -97,22 +104,17 @@ public class BritishMuseumProcedureAlgorithm extends Algorithm {
 					continue;
 				
 				NodeToken ntTmp = new NodeToken(next, edge, currentNodeToken);
-				if (getBaseAlgorithm().equals(BASE_ALGORITHM_BREADTHFIRST) && !queue.contains(ntTmp))
+				if (getBaseAlgorithm().equals(BASE_ALGORITHM_BREADTHFIRST))
 					queue.add(ntTmp);
-				else if (getBaseAlgorithm().equals(BASE_ALGORITHM_DEPTHFIRST) && !stack.contains(ntTmp)) 
+				else if (getBaseAlgorithm().equals(BASE_ALGORITHM_DEPTHFIRST))
 					stack.push(ntTmp);
 			}
 		}
 		
-		if (pathList.isEmpty())
+		if (bestToken == null)
 			return false;
 		else {
-			Path resultPath = pathList.get(0);
-			for (Path path : pathList) {
-				if (path.getLength() < resultPath.getLength())
-					resultPath = path;
-			}
-			onAlgorithmStep("Path found", resultPath, true, true);
+			onAlgorithmStep("Path found", buildPath(bestToken), true, true);
 			return true;
 		}
 	}
@@ -0,0 +1,34 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Priority of a calculation queued in a {@link CalculationScheduler}.
+ * Queued calculations are started in the order of their priority, and in
+ * the order they were queued within the same priority.
+ */
+public enum CalculationPriority {
+	/**
+	 * A query the user is waiting for
+	 */
+	INTERACTIVE,
+	/**
+	 * A query of a batch, like an algorithm comparison
+	 */
+	BATCH
+}
@@ -0,0 +1,223 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.pathfinder.model.PathStatistics;
+
+/**
+ * Runs {@link PathCalculation}s on a fixed number of worker threads. The
+ * calculations waiting for a worker are queued by their
+ * {@link CalculationPriority}, so interactive queries overtake queued batch
+ * queries. The number of waiting calculations is limited; a calculation
+ * submitted to a full queue is rejected.
+ * <p>
+ * If the Java runtime supports virtual threads, the workers can be virtual
+ * threads; the number of calculations running at the same time is still
+ * limited by the pool size.
+ * </p>
+ */
+public class CalculationScheduler {
+
+	/**
+	 * Default maximum number of waiting calculations
+	 */
+	public static final int DEFAULT_QUEUE_DEPTH = 256;
+
+	private static CalculationScheduler defaultScheduler;
+
+	private final ThreadPoolExecutor executor;
+	private final int maxQueueDepth;
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Creates a new scheduler
+	 * @param poolSize Number of calculations running at the same time
+	 * @param maxQueueDepth Maximum number of waiting calculations
+	 * @param virtualThreads True to run the calculations on virtual threads,
+	 *            if the runtime supports them
+	 */
+	public CalculationScheduler(int poolSize, int maxQueueDepth, boolean virtualThreads) {
+		poolSize = Math.max(1, poolSize);
+		this.maxQueueDepth = Math.max(0, maxQueueDepth);
+		ThreadFactory threadFactory = virtualThreads ? getVirtualThreadFactory() : null;
+		if (threadFactory == null) {
+			threadFactory = new WorkerThreadFactory();
+		}
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Gets the scheduler shared by the application. It runs as many
+	 * calculations at the same time as processors are available.
+	 * @return The default scheduler
+	 */
+	public static synchronized CalculationScheduler getDefault() {
+		if (defaultScheduler == null) {
+			defaultScheduler = new CalculationScheduler(Runtime.getRuntime().availableProcessors(),
+					DEFAULT_QUEUE_DEPTH, true);
+		}
+		return defaultScheduler;
+	}
+
+	/**
+	 * Queues a calculation
+	 * @param calculation The calculation, it must not be started
+	 * @param priority The priority
+	 * @return A future for the statistics of the calculation. Cancelling the
+	 *         future cancels the calculation, a running calculation reports
+	 *         its partial result.
+	 * @throws RejectedExecutionException If the queue is full or the
+	 *             scheduler was shut down
+	 */
+	public Future<PathStatistics> submit(final PathCalculation calculation, CalculationPriority priority) {
+		ScheduledCalculation task = new ScheduledCalculation(calculation, priority,
+				sequence.getAndIncrement());
+		synchronized (this) {
+			if (executor.getQueue().size() >= maxQueueDepth
+					&& executor.getActiveCount() >= executor.getMaximumPoolSize()) {
+				throw new RejectedExecutionException("The calculation queue is full");
+			}
+			executor.execute(task);
+		}
+		return task;
+	}
+
+	/**
+	 * Gets the number of calculations waiting for a worker
+	 * @return The queue depth
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Gets the number of running calculations
+	 * @return The number of running calculations
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Gets the maximum number of waiting calculations
+	 * @return The maximum queue depth
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * Stops accepting calculations. Queued calculations are still run.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Gets a factory for virtual threads, if the runtime supports them
+	 * (<code>Thread.ofVirtual().factory()</code>)
+	 * @return The factory, or null
+	 */
+	private static ThreadFactory getVirtualThreadFactory() {
+		try {
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			Object builder = ofVirtual.invoke(null);
+			Method factory = ofVirtual.getReturnType().getMethod("factory");
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates daemon worker threads with a lower priority than the UI
+	 */
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = defaultFactory.newThread(r);
+			thread.setName("calculation-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1);
+			return thread;
+		}
+	}
+
+	/**
+	 * A queued calculation, ordered by priority and sequence number
+	 */
+	private static class ScheduledCalculation extends FutureTask<PathStatistics> implements
+			Comparable<ScheduledCalculation> {
+
+		private final PathCalculation calculation;
+		private final CalculationPriority priority;
+		private final long sequence;
+
+		public ScheduledCalculation(final PathCalculation calculation, CalculationPriority priority,
+				long sequence) {
+			super(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						calculation.run();
+					} catch (RuntimeException e) {
+						// the listener is notified anyway, the future reports the exception
+						calculation.fail(e);
+						throw e;
+					}
+				}
+			}, calculation.getStatistics());
+			this.calculation = calculation;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			calculation.cancel();
+			return super.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public int compareTo(ScheduledCalculation other) {
+			int result = priority.compareTo(other.priority);
+			if (result == 0) {
+				result = sequence < other.sequence ? -1 : (sequence > other.sequence ? 1 : 0);
+			}
+			return result;
+		}
+	}
+}
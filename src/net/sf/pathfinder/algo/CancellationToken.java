@@ -0,0 +1,44 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Requests the cancellation of a calculation. The algorithms check the token
+ * once per expanded node and the preprocessing of the graph checks it between
+ * its searches, so a calculation stops shortly after {@link #cancel()} was
+ * called, from any thread.
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Requests the cancellation
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Indicates whether the cancellation was requested
+	 * @return True if cancelled, otherwise false
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,36 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.List;
+
+import net.sf.pathfinder.model.PathStatistics;
+
+/**
+ * Listener for the completion of an {@link AlgorithmComparison}
+ */
+public interface ComparisonListener {
+
+	/**
+	 * Called from the comparison thread after all algorithms have finished
+	 * @param source The comparison
+	 * @param results The statistics of the algorithms in the order they were
+	 *            specified, without the algorithms that failed
+	 */
+	void comparisonCompleted(AlgorithmComparison source, List<PathStatistics> results);
+}
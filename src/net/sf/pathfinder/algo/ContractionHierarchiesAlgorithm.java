@@ -0,0 +1,214 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.pathfinder.algo.ch.ContractionHierarchy;
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.IndexedHeap;
+
+/**
+ * Point-to-point queries on the {@link ContractionHierarchy} of the graph.
+ * The hierarchy is built with the first query on a graph and reused until
+ * the graph changes.
+ * <p>
+ * A forward search from the start only follows arcs to nodes of higher rank,
+ * a backward search from the destination only follows arcs coming from nodes
+ * of higher rank. The shortest path is the best combination of both at a
+ * node settled by both searches. A search direction stops as soon as its
+ * smallest key is not smaller than the best path found. The shortcuts of the
+ * result are unpacked into the edges of the graph, so the path looks like
+ * the result of any other algorithm.
+ * </p>
+ */
+public class ContractionHierarchiesAlgorithm extends Algorithm {
+
+	/**
+	 * Creates a new Contraction Hierarchies instance
+	 */
+	public ContractionHierarchiesAlgorithm() {
+	}
+
+	/**
+	 * Finds the shortest way between the two specified nodes in the graph
+	 * 
+	 * @param graph
+	 *            Graph to use for calculation
+	 * @param start
+	 *            Start node for the path
+	 * @param destination
+	 *            Destination node for the path
+	 */
+	@Override
+	public boolean isSettlingNodes() {
+		return true;
+	}
+
+	@Override
+	protected void calculateRoute(Graph graph, Node start, Node destination) {
+		CompiledGraph compiled = getCompiledGraph();
+		int startId = compiled.getId(start);
+		int destinationId = compiled.getId(destination);
+		if (startId < 0 || destinationId < 0) {
+			onAlgorithmStep("No Path found", null, true, false);
+			return;
+		}
+
+		ContractionHierarchy hierarchy = ContractionHierarchy.getInstance(compiled,
+				getPreprocessingToken());
+		if (hierarchy == null) {
+			onPreprocessingCancelled();
+			onCancelled(null);
+			return;
+		}
+
+		int nodeCount = compiled.getNodeCount();
+		double[] forwardDistances = new double[nodeCount];
+		double[] backwardDistances = new double[nodeCount];
+		int[] forwardParents = new int[nodeCount];
+		int[] backwardParents = new int[nodeCount];
+		IndexedHeap forwardQueue = new IndexedHeap(nodeCount);
+		IndexedHeap backwardQueue = new IndexedHeap(nodeCount);
+		Arrays.fill(forwardDistances, Double.POSITIVE_INFINITY);
+		Arrays.fill(backwardDistances, Double.POSITIVE_INFINITY);
+
+		forwardDistances[startId] = 0.0;
+		forwardParents[startId] = -1;
+		forwardQueue.insert(startId, 0.0);
+		backwardDistances[destinationId] = 0.0;
+		backwardParents[destinationId] = -1;
+		backwardQueue.insert(destinationId, 0.0);
+		addBackTrackingNode(start);
+		addBackTrackingNode(destination);
+
+		double best = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+
+		while (true) {
+			double forwardKey = forwardQueue.isEmpty() ? Double.POSITIVE_INFINITY
+					: forwardQueue.peekKey();
+			double backwardKey = backwardQueue.isEmpty() ? Double.POSITIVE_INFINITY
+					: backwardQueue.peekKey();
+			if (Math.min(forwardKey, backwardKey) >= best
+					|| (forwardQueue.isEmpty() && backwardQueue.isEmpty())) {
+				break;
+			}
+
+			boolean backward = backwardKey < forwardKey;
+			IndexedHeap queue = backward ? backwardQueue : forwardQueue;
+			double[] distances = backward ? backwardDistances : forwardDistances;
+			double[] otherDistances = backward ? forwardDistances : backwardDistances;
+			int[] parents = backward ? backwardParents : forwardParents;
+
+			int current = queue.removeMin();
+			countSettledNode(backward);
+			if (distances[current] + otherDistances[current] < best) {
+				best = distances[current] + otherDistances[current];
+				meetingNode = current;
+			}
+			if (checkCancelled()) {
+				if (meetingNode < 0) {
+					onCancelled(buildPath(hierarchy, backward ? -1 : current,
+							forwardParents, backward ? current : -1, backwardParents));
+					return;
+				}
+				// the best path found so far is reported, it may not be the shortest
+				break;
+			}
+
+			int first = backward ? hierarchy.getFirstDownwardArc(current)
+					: hierarchy.getFirstUpwardArc(current);
+			int last = backward ? hierarchy.getLastDownwardArc(current)
+					: hierarchy.getLastUpwardArc(current);
+			for (int i = first; i < last; i++) {
+				int arc = backward ? hierarchy.getDownwardArc(i) : hierarchy
+						.getUpwardArc(i);
+				int next = backward ? hierarchy.getArcSource(arc) : hierarchy
+						.getArcTarget(arc);
+				double distance = distances[current] + hierarchy.getArcWeight(arc);
+				if (distance < distances[next]) {
+					if (distances[next] == Double.POSITIVE_INFINITY) {
+						addBackTrackingNode(compiled.getNode(next));
+					}
+					distances[next] = distance;
+					parents[next] = arc;
+					queue.insertOrDecrease(next, distance);
+				}
+			}
+
+			if (isObserved()) {
+				onAlgorithmStep(backward ? "Backward Step" : "Forward Step",
+						buildPath(hierarchy, backward ? -1 : current,
+								forwardParents, backward ? current : -1,
+								backwardParents), false, false);
+			}
+		}
+
+		if (meetingNode < 0) {
+			onAlgorithmStep("No Path found", null, true, false);
+			return;
+		}
+
+		onAlgorithmStep("Path Found", buildPath(hierarchy, meetingNode,
+				forwardParents, meetingNode, backwardParents), true, true);
+	}
+
+	/**
+	 * Builds the path from the start to <code>forwardNode</code> and from
+	 * <code>backwardNode</code> to the destination, unpacking all shortcuts.
+	 * One of the nodes can be -1 to build only the other part.
+	 */
+	private Path buildPath(ContractionHierarchy hierarchy, int forwardNode,
+			int[] forwardParents, int backwardNode, int[] backwardParents) {
+		CompiledGraph compiled = getCompiledGraph();
+		Path path = new Path();
+		List<Path.PathStep> steps = path.getPathSteps();
+
+		if (forwardNode >= 0) {
+			int count = 0;
+			for (int node = forwardNode; forwardParents[node] >= 0; node = hierarchy
+					.getArcSource(forwardParents[node])) {
+				count++;
+			}
+			int[] arcs = new int[count];
+			for (int node = forwardNode; forwardParents[node] >= 0; node = hierarchy
+					.getArcSource(forwardParents[node])) {
+				arcs[--count] = forwardParents[node];
+			}
+			for (int arc : arcs) {
+				hierarchy.unpack(compiled, arc, steps);
+			}
+		}
+
+		int last = forwardNode;
+		if (backwardNode >= 0) {
+			for (last = backwardNode; backwardParents[last] >= 0; last = hierarchy
+					.getArcTarget(backwardParents[last])) {
+				hierarchy.unpack(compiled, backwardParents[last], steps);
+			}
+		}
+		steps.add(new Path.PathStep(compiled.getNode(last), null));
+
+		return path;
+	}
+}
@@ -55,7 +55,7 @@ public class DepthFirstSearchAlgorithm extends Algorithm {
 	 */
 	@Override
 	protected void calculateRoute(Graph graph, Node start, Node destination) {
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		
 		stack.push(new NodeToken(start, null, null, 0));
@@ -68,8 +68,13 @@ public class DepthFirstSearchAlgorithm extends Algorithm {
 						currentNodeToken.prevNodeToken)), true, true);
 				return;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
@@ -101,7 +106,7 @@ public class DepthFirstSearchAlgorithm extends Algorithm {
 	 */
 	private boolean depthSearchFirst(Node start, Node goal) {
 
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		
 		stack.push(new NodeToken(start, null, null, 0));
@@ -115,7 +120,8 @@ public class DepthFirstSearchAlgorithm extends Algorithm {
 				return true;
 			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
@@ -97,7 +97,7 @@ public class DepthFirstSearchWithHeuristicAlgorithm extends Algorithm {
 	 */
 	private boolean depthSearchFirst(Graph graph, Node start, Node goal) {
 
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		Orientation currentGoalOrientation;
 		
@@ -112,8 +112,13 @@ public class DepthFirstSearchWithHeuristicAlgorithm extends Algorithm {
 						currentNodeToken.prevNodeToken)), true, true);
 				return true;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			List<NodeToken> tmpList = new ArrayList<NodeToken>();
@@ -75,7 +75,7 @@ public class DepthLimitedSearchAlgorithm extends Algorithm {
 	 */
 	private boolean depthLimitedSearch(Node start, Node goal) {
 
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		String heuristic = getHeuristic(); 
 		int searchDepth;
@@ -102,8 +102,13 @@ public class DepthLimitedSearchAlgorithm extends Algorithm {
 					depthNodeList.add(currentNodeToken);
 					continue;
 				}
+				if (checkCancelled()) {
+					onCancelled(buildPath(currentNodeToken));
+					return true;
+				}
 				addBackTrackingNode(currentNodeToken.currentNode);
-				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+				if (isObserved())
+					onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 				visitedNodes.add(currentNodeToken.currentNode);
 				
 				List<NodeToken> tmpList = new ArrayList<NodeToken>();
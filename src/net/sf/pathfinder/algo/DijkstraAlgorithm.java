@@ -17,32 +17,27 @@
 
 package net.sf.pathfinder.algo;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
 
-import net.sf.pathfinder.model.Edge;
+import net.sf.pathfinder.model.CompiledGraph;
 import net.sf.pathfinder.model.Graph;
 import net.sf.pathfinder.model.Node;
 import net.sf.pathfinder.model.Path;
-import net.sf.pathfinder.util.properties.PropertyInfo;
+import net.sf.pathfinder.util.IndexedHeap;
 
 
 /**
- * 
+ * Label-setting Dijkstra on the compiled graph.
+ * The tentative distances are kept in a primitive array, the unsettled nodes
+ * in an indexed heap with decrease-key. The search stops as soon as the
+ * destination is settled.
  * @author Armin Widegreen
  *
  */
 
 public class DijkstraAlgorithm extends Algorithm {
-	//TODO: must be implemented
+
 	public DijkstraAlgorithm() {
-		addProperty(new PropertyInfo(STORAGE_LIMIT,
-				STORAGE_LIMIT_DESC,
-				Integer.class,
-				new Object[] {PropertyInfo.RANGE, 0, STORAGE_LIMIT_MAX}), 
-				  STORAGE_LIMIT_DEFAULT);
 	}
 	
 	/**
@@ -56,6 +51,11 @@ public class DijkstraAlgorithm extends Algorithm {
 	 *            Destination node for the path
 	 * @return The shortest path
 	 */
+	@Override
+	public boolean isSettlingNodes() {
+		return true;
+	}
+
 	@Override
 	protected void calculateRoute(Graph graph, Node start, Node destination) {
 		if (!dijkstra(start, destination)) {
@@ -71,59 +71,52 @@ public class DijkstraAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean dijkstra(Node start, Node goal) {
+		CompiledGraph compiled = getCompiledGraph();
+		int startId = compiled.getId(start);
+		int goalId = compiled.getId(goal);
+		if (startId < 0 || goalId < 0) {
+			return false;
+		}
+
+		int nodeCount = compiled.getNodeCount();
+		double[] distances = new double[nodeCount];
+		int[] parentEdges = new int[nodeCount];
+		NodeSet settled = getVisitedNodes();
+		IndexedHeap queue = new IndexedHeap(nodeCount);
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
 
-		List<Node> visitedNodes = new ArrayList<Node>();
-		Stack<NodeToken> stack = new Stack<NodeToken>();
-		
-		stack.push(new NodeToken(start, null, null, 0));
-		while (!stack.isEmpty()) {
-			NodeToken currentNodeToken = stack.pop();
-			if (visitedNodes.contains(currentNodeToken.currentNode))
-				continue;
-			if (currentNodeToken.currentNode.equals(goal)) {
-				onAlgorithmStep("Path found", buildPath(new NodeToken(currentNodeToken.currentNode, currentNodeToken.previousEdge, 
-						currentNodeToken.prevNodeToken)), true, true);
+		distances[startId] = 0.0;
+		parentEdges[startId] = -1;
+		queue.insert(startId, 0.0);
+		while (!queue.isEmpty()) {
+			int current = queue.removeMin();
+			settled.add(current);
+			countSettledNode(false);
+			if (current == goalId) {
+				onAlgorithmStep("Path found", buildPath(current, parentEdges), true, true);
 				return true;
 			}
-			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
-			visitedNodes.add(currentNodeToken.currentNode);
-			
-			List<NodeToken> tmpList = new ArrayList<NodeToken>();
-			for (Edge edge : currentNodeToken.currentNode.getEdges()) {
-				Node next = edge.getDestination();
-				double value = buildPath(new NodeToken(next, edge, currentNodeToken)).getLength();
-				value += estimateDistance(next, goal);
-				NodeToken nt = new NodeToken(next, edge, currentNodeToken, value);
-				
-				int toDel = -1;
-				boolean doAdd = true;
-				for (int i=0 ; i<stack.size() ; i++) {
-					if (nt.currentNode.equals(stack.get(i).currentNode)) {
-						if (stack.get(i).value > nt.value)
-							toDel = i;
-						else 
-							doAdd = false;
-					}
-				}
-				if (toDel >= 0) 
-					stack.remove(toDel);
-				if (doAdd)
-					tmpList.add(nt);
+			if (checkCancelled()) {
+				onCancelled(buildPath(current, parentEdges));
+				return true;
+			}
+			addBackTrackingNode(compiled.getNode(current));
+			if (isObserved()) {
+				onAlgorithmStep("Visiting Node", buildPath(current, parentEdges), false, false);
 			}
-			
-			if (getStorageSize() == 0) {
-				for (NodeToken nodeToken : tmpList) 
-					stack.push(nodeToken);
-			} else {
-				for (int i=0 ; i<getStorageSize() && i<tmpList.size() ; i++)
-					stack.push(tmpList.get(i));
+
+			int last = compiled.getLastEdge(current);
+			for (int edge = compiled.getFirstEdge(current); edge < last; edge++) {
+				int next = compiled.getTarget(edge);
+				if (settled.contains(next)) 
+					continue;
+				double value = distances[current] + compiled.getWeight(edge);
+				if (value < distances[next]) {
+					distances[next] = value;
+					parentEdges[next] = edge;
+					queue.insertOrDecrease(next, value);
+				}
 			}
-			
-			//sort NodeToken.value
-			Collections.sort(stack);
-			//reverse because stack (LIFO) > bring shortest to front
-			Collections.reverse(stack);
 		}
 	
 		return false;
@@ -0,0 +1,276 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.DistanceMatrix;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.util.IndexedHeap;
+
+/**
+ * Calculates the shortest path distances between many sources and many
+ * targets. Every row of the {@link DistanceMatrix} is filled by a single
+ * one-to-many Dijkstra search on the {@link CompiledGraph}, which stops as
+ * soon as all targets are settled. The rows are distributed over a pool of
+ * worker threads, each with its own search buffers.
+ */
+public class DistanceMatrixCalculation {
+
+	private final CompiledGraph graph;
+	private final List<Node> sources;
+	private final List<Node> targets;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private DistanceMatrixListener listener;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Creates a new calculation
+	 * @param graph The graph
+	 * @param sources The source nodes, one per row
+	 * @param targets The target nodes, one per column
+	 */
+	public DistanceMatrixCalculation(Graph graph, List<Node> sources, List<Node> targets) {
+		this.graph = graph.getCompiledGraph();
+		this.sources = new ArrayList<Node>(sources);
+		this.targets = new ArrayList<Node>(targets);
+	}
+
+	/**
+	 * Gets the number of worker threads
+	 * @return The number of threads
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * Sets the number of worker threads
+	 * @param threadCount The number of threads, the number of available
+	 *            processors by default
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Sets the listener notified after every calculated row
+	 * @param listener The listener, may be null
+	 */
+	public void setDistanceMatrixListener(DistanceMatrixListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Cancels the calculation. The running searches are stopped and
+	 * {@link #calculate()} returns the rows calculated so far.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Indicates whether the calculation was cancelled
+	 * @return True if it was cancelled, otherwise false
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Calculates the matrix and waits for it to complete
+	 * @return The matrix; if the calculation was cancelled, the rows that were
+	 *         not calculated are <code>NaN</code>
+	 */
+	public DistanceMatrix calculate() {
+		final DistanceMatrix matrix = new DistanceMatrix(sources, targets);
+		final int rowCount = sources.size();
+		final int[] sourceIds = getIds(sources);
+		final int[] targetIds = getIds(targets);
+		final AtomicInteger nextRow = new AtomicInteger();
+		final AtomicInteger completedRows = new AtomicInteger();
+
+		int threads = Math.min(threadCount, rowCount);
+		List<Callable<Object>> workers = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < threads; i++) {
+			workers.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					Search search = new Search(targetIds);
+					int row;
+					while (!cancelled && (row = nextRow.getAndIncrement()) < rowCount) {
+						if (!search.run(sourceIds[row], matrix, row)) {
+							break;
+						}
+						int completed = completedRows.incrementAndGet();
+						if (listener != null) {
+							listener.progressChanged(DistanceMatrixCalculation.this, completed, rowCount);
+						}
+					}
+					return null;
+				}
+			});
+		}
+
+		if (threads <= 1) {
+			for (Callable<Object> worker : workers) {
+				try {
+					worker.call();
+				} catch (Exception e) {
+					throw new IllegalStateException("Distance matrix calculation failed", e);
+				}
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				for (Future<Object> future : executor.invokeAll(workers)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				cancelled = true;
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Distance matrix calculation failed", e.getCause());
+			} finally {
+				executor.shutdown();
+			}
+		}
+		//set once all workers are done, concurrent updates could lower the count
+		matrix.setCompletedRows(completedRows.get());
+		return matrix;
+	}
+
+	/**
+	 * Gets the ids of the nodes in the compiled graph
+	 */
+	private int[] getIds(List<Node> nodes) {
+		int[] ids = new int[nodes.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = graph.getId(nodes.get(i));
+			if (ids[i] < 0) {
+				throw new IllegalArgumentException("Node is not part of the graph: " + nodes.get(i).getName());
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * The buffers of a one-to-many search, reused for all rows of a worker
+	 */
+	private class Search {
+
+		private final double[] distances;
+		private final IndexedHeap queue;
+		private final int[] touched;
+		private int touchedCount = 0;
+
+		// columns of a node as a linked list: first column and next column
+		private final int[] firstColumns;
+		private final int[] nextColumns;
+		private final int targetCount;
+
+		public Search(int[] targetIds) {
+			int nodeCount = graph.getNodeCount();
+			distances = new double[nodeCount];
+			Arrays.fill(distances, Double.POSITIVE_INFINITY);
+			queue = new IndexedHeap(nodeCount);
+			touched = new int[nodeCount];
+
+			firstColumns = new int[nodeCount];
+			Arrays.fill(firstColumns, -1);
+			nextColumns = new int[targetIds.length];
+			int distinct = 0;
+			for (int column = targetIds.length - 1; column >= 0; column--) {
+				int node = targetIds[column];
+				if (firstColumns[node] < 0) {
+					distinct++;
+				}
+				nextColumns[column] = firstColumns[node];
+				firstColumns[node] = column;
+			}
+			targetCount = distinct;
+		}
+
+		/**
+		 * Fills a row of the matrix
+		 * @return False if the search was cancelled
+		 */
+		public boolean run(int source, DistanceMatrix matrix, int row) {
+			int remaining = targetCount;
+			distances[source] = 0.0;
+			touched[touchedCount++] = source;
+			queue.insert(source, 0.0);
+
+			int settled = 0;
+			while (remaining > 0 && !queue.isEmpty()) {
+				if ((++settled & 0x3ff) == 0 && cancelled) {
+					reset();
+					return false;
+				}
+				int current = queue.removeMin();
+				if (firstColumns[current] >= 0) {
+					remaining--;
+				}
+				double currentDistance = distances[current];
+				int last = graph.getLastEdge(current);
+				for (int edge = graph.getFirstEdge(current); edge < last; edge++) {
+					int next = graph.getTarget(edge);
+					double distance = currentDistance + graph.getWeight(edge);
+					if (distance < distances[next]) {
+						if (distances[next] == Double.POSITIVE_INFINITY) {
+							touched[touchedCount++] = next;
+						}
+						distances[next] = distance;
+						queue.insertOrDecrease(next, distance);
+					}
+				}
+			}
+
+			// either all targets are settled or the rest is not reachable
+			for (int column = 0; column < nextColumns.length; column++) {
+				matrix.setDistance(row, column, Double.POSITIVE_INFINITY);
+			}
+			for (int i = 0; i < touchedCount; i++) {
+				int node = touched[i];
+				for (int column = firstColumns[node]; column >= 0; column = nextColumns[column]) {
+					matrix.setDistance(row, column, distances[node]);
+				}
+			}
+			reset();
+			return true;
+		}
+
+		private void reset() {
+			for (int i = 0; i < touchedCount; i++) {
+				distances[touched[i]] = Double.POSITIVE_INFINITY;
+			}
+			touchedCount = 0;
+			queue.clear();
+		}
+	}
+}
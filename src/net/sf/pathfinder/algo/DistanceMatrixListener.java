@@ -0,0 +1,33 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Listener for the progress of a {@link DistanceMatrixCalculation}.
+ * The methods are called from the worker threads of the calculation.
+ */
+public interface DistanceMatrixListener {
+
+	/**
+	 * Called after a row of the matrix was calculated
+	 * @param source The calculation
+	 * @param completedRows The number of rows calculated so far
+	 * @param totalRows The number of rows of the matrix
+	 */
+	void progressChanged(DistanceMatrixCalculation source, int completedRows, int totalRows);
+}
@@ -19,7 +19,6 @@ package net.sf.pathfinder.algo;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Stack;
 
 import net.sf.pathfinder.model.Edge;
@@ -72,8 +71,6 @@ public class GreatDelugeAlgorithm extends Algorithm {
 	 */
 	@Override
 	protected void calculateRoute(Graph graph, Node start, Node destination) {
-		  List<Node> visitedNodes = new ArrayList<Node>();
-		  visitedNodes.add(start);
 		  if (!greatDelugeSearch(graph, start, destination)) {
 			  onAlgorithmStep("No path found", new Path(), true, false);
 		  }
@@ -85,7 +82,7 @@ public class GreatDelugeAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean greatDelugeSearch(Graph graph, Node start, Node goal) {
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		double fountain = calculateClimbGrade(graph.getWidth(), graph.getHeight(), start, goal);
 		double gradientFactor = getGradientFactor();
@@ -101,8 +98,13 @@ public class GreatDelugeAlgorithm extends Algorithm {
 				return true;
 			}
 			
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			ArrayList<NodeToken> tmpList = new ArrayList<NodeToken>();
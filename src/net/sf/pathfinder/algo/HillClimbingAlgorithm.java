@@ -19,7 +19,6 @@ package net.sf.pathfinder.algo;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Stack;
 
 import net.sf.pathfinder.model.Edge;
@@ -67,8 +66,6 @@ public class HillClimbingAlgorithm extends Algorithm {
 	 */
 	@Override
 	protected void calculateRoute(Graph graph, Node start, Node destination) {
-		  List<Node> visitedNodes = new ArrayList<Node>();
-		  visitedNodes.add(start);
 		  if (!hillClimbingSearch(graph, start, destination)) {
 			  onAlgorithmStep("No path found", new Path(), true, false);
 		  }
@@ -80,7 +77,7 @@ public class HillClimbingAlgorithm extends Algorithm {
 	 * @return boolean if goal found or not
 	 */
 	private boolean hillClimbingSearch(Graph graph, Node start, Node goal) {
-		List<Node> visitedNodes = new ArrayList<Node>();
+		NodeSet visitedNodes = getVisitedNodes();
 		Stack<NodeToken> stack = new Stack<NodeToken>();
 		
 		stack.push(new NodeToken(start, null, null, 0));
@@ -93,8 +90,13 @@ public class HillClimbingAlgorithm extends Algorithm {
 						currentNodeToken.prevNodeToken)), true, true);
 				return true;
 			}
+			if (checkCancelled()) {
+				onCancelled(buildPath(currentNodeToken));
+				return true;
+			}
 			addBackTrackingNode(currentNodeToken.currentNode);
-			onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
+			if (isObserved())
+				onAlgorithmStep("Visiting Node", buildPath(currentNodeToken), false, false);
 			visitedNodes.add(currentNodeToken.currentNode);
 			
 			ArrayList<NodeToken> tmpList = new ArrayList<NodeToken>();
@@ -0,0 +1,451 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.util.IndexedHeap;
+
+/**
+ * Landmarks for the ALT (A*, landmarks, triangle inequality) lower bounds.
+ * For every landmark <code>L</code> the distances from <code>L</code> to all
+ * nodes and from all nodes to <code>L</code> are precomputed. By the triangle
+ * inequality <code>d(v, t) &gt;= d(L, t) - d(L, v)</code> and
+ * <code>d(v, t) &gt;= d(v, L) - d(t, L)</code>; the largest of these values
+ * over all landmarks is a lower bound of the distance, usually a much tighter
+ * one than the air line, and a consistent one.
+ * <p>
+ * Landmarks are either selected <i>farthest</i>, every landmark is the node
+ * farthest away from all landmarks selected before, or <i>avoid</i>, every
+ * landmark is the leaf of the region of a shortest path tree the landmarks
+ * selected before cover worst.
+ * </p>
+ */
+public final class Landmarks {
+
+	/**
+	 * Farthest selection
+	 */
+	public static final String SELECTION_FARTHEST = "farthest";
+	/**
+	 * Avoid selection
+	 */
+	public static final String SELECTION_AVOID = "avoid";
+
+	private static final long SEED = 4711;
+
+	private static final Map<CompiledGraph, Map<String, Landmarks>> landmarkCache = new WeakHashMap<CompiledGraph, Map<String, Landmarks>>();
+
+	private final int count;
+	private final int[] landmarks;
+	private final double[] fromLandmarks;
+	private final double[] toLandmarks;
+
+	private Landmarks(int[] landmarks, double[] fromLandmarks, double[] toLandmarks) {
+		this.count = landmarks.length;
+		this.landmarks = landmarks;
+		this.fromLandmarks = fromLandmarks;
+		this.toLandmarks = toLandmarks;
+	}
+
+	/**
+	 * Gets the landmarks of a graph. Landmarks are computed on the first
+	 * request and kept as long as the compiled graph is in use.
+	 * @param graph The compiled graph
+	 * @param count The number of landmarks
+	 * @param selection The selection strategy, {@link #SELECTION_FARTHEST} or
+	 *            {@link #SELECTION_AVOID}
+	 * @return The landmarks
+	 */
+	public static Landmarks getInstance(CompiledGraph graph, int count, String selection) {
+		return getInstance(graph, count, selection, null);
+	}
+
+	/**
+	 * Gets the landmarks of a graph, see
+	 * {@link #getInstance(CompiledGraph, int, String)}. The computation stops
+	 * when the token is cancelled and is not kept.
+	 * @param graph The compiled graph
+	 * @param count The number of landmarks
+	 * @param selection The selection strategy
+	 * @param token The token checked between the searches, may be null
+	 * @return The landmarks or null, if the computation was cancelled
+	 */
+	public static Landmarks getInstance(CompiledGraph graph, int count, String selection,
+			CancellationToken token) {
+		String key = selection + ":" + count;
+		synchronized (landmarkCache) {
+			Map<String, Landmarks> graphLandmarks = landmarkCache.get(graph);
+			if (graphLandmarks == null) {
+				graphLandmarks = new HashMap<String, Landmarks>();
+				landmarkCache.put(graph, graphLandmarks);
+			}
+			Landmarks result = graphLandmarks.get(key);
+			if (result == null) {
+				result = compute(graph, count, selection, token);
+				if (result != null) {
+					graphLandmarks.put(key, result);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Selects the landmarks and computes their distances
+	 * @param graph The compiled graph
+	 * @param count The number of landmarks
+	 * @param selection The selection strategy
+	 * @return The landmarks
+	 */
+	public static Landmarks compute(CompiledGraph graph, int count, String selection) {
+		return compute(graph, count, selection, null);
+	}
+
+	/**
+	 * Selects the landmarks and computes their distances
+	 * @param graph The compiled graph
+	 * @param count The number of landmarks
+	 * @param selection The selection strategy
+	 * @param token The token checked between the searches, may be null
+	 * @return The landmarks or null, if the computation was cancelled
+	 */
+	public static Landmarks compute(CompiledGraph graph, int count, String selection,
+			CancellationToken token) {
+		count = Math.min(Math.max(count, 0), graph.getNodeCount());
+		int[] selected = SELECTION_AVOID.equals(selection) ? selectAvoid(graph, count, token)
+				: selectFarthest(graph, count, token);
+		if (selected == null) {
+			return null;
+		}
+		return computeDistances(graph, selected, token);
+	}
+
+	private static boolean isCancelled(CancellationToken token) {
+		return token != null && token.isCancelled();
+	}
+
+	/**
+	 * Gets the number of landmarks
+	 * @return The number of landmarks
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the node id of a landmark
+	 * @param index The index of the landmark
+	 * @return The node id
+	 */
+	public int getLandmark(int index) {
+		return landmarks[index];
+	}
+
+	/**
+	 * Calculates the landmark lower bound of the distance between two nodes
+	 * @param node The node id
+	 * @param destination The destination node id
+	 * @return The lower bound, 0 if there are no landmarks and infinity if the
+	 *         destination is not reachable
+	 */
+	public double lowerBound(int node, int destination) {
+		double bound = 0.0;
+		int nodeOffset = node * count;
+		int destinationOffset = destination * count;
+		for (int i = 0; i < count; i++) {
+			double forward = fromLandmarks[destinationOffset + i]
+					- fromLandmarks[nodeOffset + i];
+			if (forward > bound) {
+				bound = forward;
+			}
+			double backward = toLandmarks[nodeOffset + i]
+					- toLandmarks[destinationOffset + i];
+			if (backward > bound) {
+				bound = backward;
+			}
+		}
+		return bound;
+	}
+
+	private static int[] selectFarthest(CompiledGraph graph, int count, CancellationToken token) {
+		int nodeCount = graph.getNodeCount();
+		int[] selected = new int[count];
+		if (count == 0) {
+			return selected;
+		}
+
+		double[] minDistances = new double[nodeCount];
+		Arrays.fill(minDistances, Double.POSITIVE_INFINITY);
+		int next = farthest(search(graph, new Random(SEED).nextInt(nodeCount), false, null));
+		for (int i = 0; i < count; i++) {
+			if (isCancelled(token)) {
+				return null;
+			}
+			selected[i] = next;
+			double[] distances = search(graph, next, false, null);
+			next = -1;
+			for (int node = 0; node < nodeCount; node++) {
+				minDistances[node] = Math.min(minDistances[node], distances[node]);
+				if (next < 0 || minDistances[node] > minDistances[next]) {
+					next = node;
+				}
+			}
+		}
+		return selected;
+	}
+
+	private static int[] selectAvoid(CompiledGraph graph, int count, CancellationToken token) {
+		int nodeCount = graph.getNodeCount();
+		int[] selected = new int[count];
+		if (count == 0) {
+			return selected;
+		}
+
+		Random random = new Random(SEED);
+		selected[0] = farthest(search(graph, random.nextInt(nodeCount), false, null));
+		boolean[] isLandmark = new boolean[nodeCount];
+		isLandmark[selected[0]] = true;
+		Landmarks current = computeDistances(graph, Arrays.copyOf(selected, 1), token);
+
+		for (int i = 1; i < count; i++) {
+			if (current == null) {
+				return null;
+			}
+			int root = random.nextInt(nodeCount);
+			int[] parents = new int[nodeCount];
+			int[] order = new int[nodeCount];
+			double[] distances = search(graph, root, false, parents, order);
+			int reached = 0;
+			while (reached < nodeCount && order[reached] >= 0) {
+				reached++;
+			}
+
+			// weight of a node: how much the current landmarks underestimate it,
+			// size: the weight of the subtree, 0 if the subtree has a landmark
+			double[] sizes = new double[nodeCount];
+			boolean[] covered = new boolean[nodeCount];
+			for (int j = reached - 1; j >= 0; j--) {
+				int node = order[j];
+				if (isLandmark[node]) {
+					covered[node] = true;
+				}
+				if (!covered[node]) {
+					sizes[node] += distances[node] - current.lowerBound(root, node);
+				} else {
+					sizes[node] = 0.0;
+				}
+				if (parents[node] >= 0) {
+					int parent = graph.getSource(parents[node]);
+					if (covered[node]) {
+						covered[parent] = true;
+					}
+					sizes[parent] += sizes[node];
+				}
+			}
+
+			// descend to the child with the largest size until a leaf is reached
+			int node = root;
+			while (true) {
+				int child = -1;
+				int last = graph.getLastEdge(node);
+				for (int edge = graph.getFirstEdge(node); edge < last; edge++) {
+					int target = graph.getTarget(edge);
+					if (parents[target] == edge && (child < 0 || sizes[target] > sizes[child])) {
+						child = target;
+					}
+				}
+				if (child < 0) {
+					break;
+				}
+				node = child;
+			}
+			if (isLandmark[node]) {
+				node = farthest(current.minimumDistances(graph.getNodeCount()));
+			}
+
+			selected[i] = node;
+			isLandmark[node] = true;
+			current = computeDistances(graph, Arrays.copyOf(selected, i + 1), token);
+		}
+		return current != null ? selected : null;
+	}
+
+	/**
+	 * Gets the distance from the nearest landmark for every node
+	 */
+	private double[] minimumDistances(int nodeCount) {
+		double[] result = new double[nodeCount];
+		Arrays.fill(result, Double.POSITIVE_INFINITY);
+		for (int node = 0; node < nodeCount; node++) {
+			for (int i = 0; i < count; i++) {
+				result[node] = Math.min(result[node], fromLandmarks[node * count + i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the node with the greatest distance; unreachable nodes count as
+	 * the farthest, so other components of the graph get landmarks too.
+	 */
+	private static int farthest(double[] distances) {
+		int result = 0;
+		for (int node = 1; node < distances.length; node++) {
+			if (distances[node] > distances[result]) {
+				result = node;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the distances from and to the landmarks, one search per
+	 * landmark and direction, in parallel. Returns null, if the token was
+	 * cancelled before all searches were done.
+	 */
+	private static Landmarks computeDistances(final CompiledGraph graph, int[] selected,
+			final CancellationToken token) {
+		final int nodeCount = graph.getNodeCount();
+		final int count = selected.length;
+		final double[] fromLandmarks = new double[nodeCount * count];
+		final double[] toLandmarks = new double[nodeCount * count];
+
+		List<Callable<Object>> searches = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < count; i++) {
+			for (final boolean reverse : new boolean[] { false, true }) {
+				final int index = i;
+				final int landmark = selected[i];
+				searches.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						if (isCancelled(token)) {
+							return null;
+						}
+						double[] distances = search(graph, landmark, reverse, null);
+						double[] target = reverse ? toLandmarks : fromLandmarks;
+						for (int node = 0; node < nodeCount; node++) {
+							target[node * count + index] = distances[node];
+						}
+						return null;
+					}
+				});
+			}
+		}
+
+		int threads = Math.min(searches.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (Callable<Object> search : searches) {
+				try {
+					search.call();
+				} catch (Exception e) {
+					throw new IllegalStateException("Landmark search failed", e);
+				}
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				for (Future<Object> future : executor.invokeAll(searches)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Landmark search was interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Landmark search failed", e.getCause());
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		if (isCancelled(token)) {
+			return null;
+		}
+		return new Landmarks(selected, fromLandmarks, toLandmarks);
+	}
+
+	private static double[] search(CompiledGraph graph, int source, boolean reverse,
+			int[] parentEdges) {
+		return search(graph, source, reverse, parentEdges, null);
+	}
+
+	/**
+	 * One-to-all Dijkstra search
+	 * @param graph The graph
+	 * @param source The source node id
+	 * @param reverse True to search the incoming edges, that is the distances
+	 *            to the source
+	 * @param parentEdges Array for the edge each node was reached with, may be
+	 *            null
+	 * @param order Array for the nodes in the order they were settled, the
+	 *            rest is filled with -1; may be null
+	 * @return The distances, infinity for unreachable nodes
+	 */
+	private static double[] search(CompiledGraph graph, int source, boolean reverse,
+			int[] parentEdges, int[] order) {
+		int nodeCount = graph.getNodeCount();
+		double[] distances = new double[nodeCount];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		if (parentEdges != null) {
+			Arrays.fill(parentEdges, -1);
+		}
+		if (order != null) {
+			Arrays.fill(order, -1);
+		}
+		IndexedHeap queue = new IndexedHeap(nodeCount);
+
+		distances[source] = 0.0;
+		queue.insert(source, 0.0);
+		int settled = 0;
+		while (!queue.isEmpty()) {
+			int current = queue.removeMin();
+			if (order != null) {
+				order[settled] = current;
+			}
+			settled++;
+
+			int first = reverse ? graph.getFirstReverseEdge(current) : graph.getFirstEdge(current);
+			int last = reverse ? graph.getLastReverseEdge(current) : graph.getLastEdge(current);
+			for (int i = first; i < last; i++) {
+				int edge = reverse ? graph.getReverseEdge(i) : i;
+				int next = reverse ? graph.getSource(edge) : graph.getTarget(edge);
+				double distance = distances[current] + graph.getWeight(edge);
+				if (distance < distances[next]) {
+					distances[next] = distance;
+					if (parentEdges != null) {
+						parentEdges[next] = edge;
+					}
+					queue.insertOrDecrease(next, distance);
+				}
+			}
+		}
+		return distances;
+	}
+}
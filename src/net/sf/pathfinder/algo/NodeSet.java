@@ -0,0 +1,123 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.util.StampedSet;
+
+/**
+ * A set of nodes of a compiled graph, backed by a {@link StampedSet} over the
+ * node ids. Membership tests are constant time and the set is reused between
+ * calculations without clearing its memory. Nodes that are not part of the
+ * compiled graph are kept in a hash set.
+ */
+public class NodeSet {
+
+	private final StampedSet ids = new StampedSet(0);
+	private final Set<Node> others = new HashSet<Node>();
+	private CompiledGraph graph;
+
+	/**
+	 * Removes all nodes and binds the set to the specified graph
+	 * @param graph The compiled graph
+	 */
+	public void reset(CompiledGraph graph) {
+		this.graph = graph;
+		ids.clear(graph.getNodeCount());
+		if (!others.isEmpty()) {
+			others.clear();
+		}
+	}
+
+	/**
+	 * Indicates whether the node is in the set
+	 * @param node The node
+	 * @return True if the node is in the set, otherwise false
+	 */
+	public boolean contains(Node node) {
+		int id = graph.getId(node);
+		if (id < 0) {
+			return others.contains(node);
+		}
+		return ids.contains(id);
+	}
+
+	/**
+	 * Indicates whether the node with the specified id is in the set
+	 * @param id The node id
+	 * @return True if the node is in the set, otherwise false
+	 */
+	public boolean contains(int id) {
+		return ids.contains(id);
+	}
+
+	/**
+	 * Adds a node
+	 * @param node The node
+	 * @return True if the node was not in the set before, otherwise false
+	 */
+	public boolean add(Node node) {
+		int id = graph.getId(node);
+		if (id < 0) {
+			return others.add(node);
+		}
+		return ids.add(id);
+	}
+
+	/**
+	 * Adds the node with the specified id
+	 * @param id The node id
+	 * @return True if the node was not in the set before, otherwise false
+	 */
+	public boolean add(int id) {
+		return ids.add(id);
+	}
+
+	/**
+	 * Adds all nodes of the set to a collection, the nodes of the compiled
+	 * graph in the order of their ids
+	 * @param nodes The collection
+	 */
+	public void addTo(Collection<Node> nodes) {
+		int count = graph.getNodeCount();
+		for (int id = 0; id < count; id++) {
+			if (ids.contains(id)) {
+				nodes.add(graph.getNode(id));
+			}
+		}
+		nodes.addAll(others);
+	}
+
+	/**
+	 * Removes a node
+	 * @param node The node
+	 * @return True if the node was in the set, otherwise false
+	 */
+	public boolean remove(Node node) {
+		int id = graph.getId(node);
+		if (id < 0) {
+			return others.remove(node);
+		}
+		return ids.remove(id);
+	}
+}
@@ -17,12 +17,18 @@
 
 package net.sf.pathfinder.algo;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import net.sf.pathfinder.model.CompiledGraph;
 import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.MappedStepJournal;
 import net.sf.pathfinder.model.Node;
 import net.sf.pathfinder.model.Path;
 import net.sf.pathfinder.model.PathStatistics;
 
-public class PathCalculation extends Thread implements AlgorithmListener {
+public class PathCalculation extends Thread implements BackTrackingListener {
 
 	private CalculationListener calculationListener;
 
@@ -34,6 +40,12 @@ public class PathCalculation extends Thread implements AlgorithmListener {
 	private Node destination;
 	private PathStatistics statistics;
 	private long startMillis;
+	private TraceLevel traceLevel = TraceLevel.FULL;
+	private int traceSampleRate = 100;
+	private long traceSampleInterval = 0;
+	private CancellationToken cancellationToken = new CancellationToken();
+	private RouteCache routeCache;
+	private RuntimeException error;
 
 	public PathCalculation(Algorithm algorithm, Graph graph, Node start, Node destination, CalculationListener calculationListener) {
 		this.algorithm = algorithm;
@@ -48,8 +60,52 @@ public class PathCalculation extends Thread implements AlgorithmListener {
 	public void run() {
 		running = true;
 		startMillis = System.currentTimeMillis();
+		if (routeCache != null) {
+			routeCache.calculate(this);
+		} else {
+			calculate();
+		}
+		running = false;
+	}
+
+	/**
+	 * Runs the algorithm
+	 */
+	void calculate() {
+		algorithm.setTraceLevel(traceLevel);
+		algorithm.setTraceSampleRate(traceSampleRate);
+		algorithm.setTraceSampleInterval(traceSampleInterval);
+		algorithm.setCancellationToken(cancellationToken);
 		algorithm.calculateRoute(graph, start, destination, this);
+	}
+
+	/**
+	 * Completes the calculation with a cached result instead of running the
+	 * algorithm
+	 * @param path The cached path, null if the destination is not reachable
+	 */
+	void complete(Path path) {
+		if (path != null) {
+			statistics.getPaths().add(path);
+		}
+		statistics.setPathFound(path != null);
+		statistics.setCached(true);
+		statistics.setDuration(System.currentTimeMillis() - startMillis);
+		fireCalculationFinished();
+	}
+
+	/**
+	 * Completes the calculation after the algorithm failed. The statistics
+	 * are marked as incomplete and the listener is notified, so it can
+	 * report the error.
+	 * @param error The exception thrown by the algorithm
+	 */
+	void fail(RuntimeException error) {
+		this.error = error;
 		running = false;
+		statistics.setComplete(false);
+		statistics.setDuration(System.currentTimeMillis() - startMillis);
+		fireCalculationFinished();
 	}
 
 	protected void fireCalculationFinished() {
@@ -59,10 +115,25 @@ public class PathCalculation extends Thread implements AlgorithmListener {
 	@Override
 	public void algorithmStep(String message, Path currentPath, boolean finished, boolean found) {
 		statistics.getPaths().add(currentPath);
+		onStep(finished, found);
+	}
+
+	@Override
+	public void algorithmStep(String message, Path currentPath,
+			List<Node> addedBackTrackingNodes, boolean finished, boolean found) {
+		statistics.addStep(currentPath, addedBackTrackingNodes);
+		onStep(finished, found);
+	}
+
+	private void onStep(boolean finished, boolean found) {
 		statistics.setPathFound(found);
 		if (finished) {
 			long endMillis = System.currentTimeMillis();
 			statistics.setDuration(endMillis - startMillis);
+			statistics.setComplete(!algorithm.isCancelled());
+			statistics.setForwardSettledCount(algorithm.getForwardSettledCount());
+			statistics.setBackwardSettledCount(algorithm.getBackwardSettledCount());
+			statistics.setExpandedCount(algorithm.getExpandedCount());
 			fireCalculationFinished();
 		}
 	}
@@ -71,7 +142,100 @@ public class PathCalculation extends Thread implements AlgorithmListener {
 		return running;
 	}
 
+	/**
+	 * Cancels the calculation. The algorithm stops at its next expanded node
+	 * and reports its best partial result; the statistics are marked as
+	 * incomplete.
+	 */
+	public void cancel() {
+		cancellationToken.cancel();
+	}
+
+	/**
+	 * Gets the exception the calculation failed with
+	 * @return The exception, or null if the calculation did not fail
+	 */
+	public RuntimeException getError() {
+		return error;
+	}
+
 	public Algorithm getAlgorithm() {
 		return algorithm;
 	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public Node getStart() {
+		return start;
+	}
+
+	public Node getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Sets the cache the calculation looks its result up in. Has to be set
+	 * before the calculation is started.
+	 * @param routeCache The cache, null to always run the algorithm
+	 */
+	public void setRouteCache(RouteCache routeCache) {
+		this.routeCache = routeCache;
+	}
+
+	/**
+	 * Gets the statistics the calculation records its steps in
+	 * @return The statistics
+	 */
+	public PathStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Gets which steps of the calculation are recorded in the statistics
+	 * @return The trace level
+	 */
+	public TraceLevel getTraceLevel() {
+		return traceLevel;
+	}
+
+	/**
+	 * Sets which steps of the calculation are recorded in the statistics.
+	 * Has to be set before the calculation is started.
+	 * @param traceLevel The trace level, {@link TraceLevel#FULL} by default
+	 */
+	public void setTraceLevel(TraceLevel traceLevel) {
+		this.traceLevel = traceLevel;
+	}
+
+	/**
+	 * Records the steps of the calculation in memory mapped files instead of
+	 * the heap. Has to be set before the calculation is started.
+	 * @param file The step file, or null to use temporary files that are
+	 * deleted on exit
+	 * @throws IOException If the files can't be created
+	 * @see MappedStepJournal
+	 */
+	public void setTraceFile(File file) throws IOException {
+		CompiledGraph compiledGraph = graph.getCompiledGraph();
+		if (file == null) {
+			statistics.setPaths(MappedStepJournal.createTemporary(compiledGraph));
+		} else {
+			statistics.setPaths(new MappedStepJournal(file, compiledGraph));
+		}
+	}
+
+	/**
+	 * Sets how the steps are sampled in {@link TraceLevel#SAMPLED} mode
+	 * @param sampleRate Every n-th step is recorded, 0 to sample only by time
+	 * @param sampleInterval Minimum time between two recorded steps in
+	 * milliseconds, 0 to sample only by count
+	 * @see Algorithm#setTraceSampleRate(int)
+	 * @see Algorithm#setTraceSampleInterval(long)
+	 */
+	public void setTraceSampling(int sampleRate, long sampleInterval) {
+		this.traceSampleRate = sampleRate;
+		this.traceSampleInterval = sampleInterval;
+	}
 }
@@ -0,0 +1,292 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.model.PathStatistics;
+import net.sf.pathfinder.util.properties.PropertyInfo;
+
+/**
+ * A bounded cache of calculated routes, the least recently used route is
+ * evicted first. Routes are identified by the compiled snapshot of the graph,
+ * which is replaced by every {@link Graph#invalidate()}, the algorithm class,
+ * the values of the algorithm properties and the ids of the start and
+ * destination node. The snapshot is only referenced weakly; the routes of a
+ * snapshot are removed once it was collected, so the cache does not keep
+ * replaced graphs alive.
+ * <p>
+ * Only the final path of completed calculations is cached; pairs without a
+ * path are cached as well. If an identical route is requested while it is
+ * calculated, the request waits for that calculation instead of running the
+ * algorithm again.
+ * </p>
+ */
+public class RouteCache {
+
+	/**
+	 * Default number of cached routes
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private static RouteCache defaultCache;
+
+	private final int capacity;
+	private final Map<Key, Path> entries;
+	private final Map<Key, Flight> flights = new HashMap<Key, Flight>();
+	private final ReferenceQueue<CompiledGraph> collectedGraphs = new ReferenceQueue<CompiledGraph>();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Creates a new cache
+	 * @param capacity Maximum number of cached routes
+	 */
+	public RouteCache(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		this.entries = new LinkedHashMap<Key, Path>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Path> eldest) {
+				return size() > RouteCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Gets the cache shared by the application
+	 * @return The default cache
+	 */
+	public static synchronized RouteCache getDefault() {
+		if (defaultCache == null) {
+			defaultCache = new RouteCache(DEFAULT_CAPACITY);
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Completes the calculation with the cached route, or runs it and caches
+	 * its result
+	 * @param calculation The calculation
+	 */
+	void calculate(PathCalculation calculation) {
+		CompiledGraph graph = calculation.getGraph().getCompiledGraph();
+		if (graph.getId(calculation.getStart()) < 0 || graph.getId(calculation.getDestination()) < 0) {
+			// not identifiable by node ids
+			calculation.calculate();
+			return;
+		}
+		Key key = new Key(calculation, graph, collectedGraphs);
+		Flight flight;
+		boolean owner = false;
+		boolean hit = false;
+		Path path = null;
+		synchronized (this) {
+			purge();
+			if (entries.containsKey(key)) {
+				path = entries.get(key);
+				hit = true;
+			}
+			flight = hit ? null : flights.get(key);
+			if (!hit && flight == null) {
+				flight = new Flight();
+				flights.put(key, flight);
+				owner = true;
+			}
+		}
+
+		if (hit) {
+			hitCount.incrementAndGet();
+			calculation.complete(path);
+			return;
+		}
+
+		if (owner) {
+			missCount.incrementAndGet();
+			try {
+				calculation.calculate();
+				PathStatistics statistics = calculation.getStatistics();
+				if (statistics.isComplete()) {
+					flight.path = statistics.isPathFound() ? statistics.getLastPath() : null;
+					flight.cacheable = true;
+				}
+			} finally {
+				synchronized (this) {
+					flights.remove(key);
+					if (flight.cacheable) {
+						entries.put(key, flight.path);
+					}
+				}
+				flight.done.countDown();
+			}
+			return;
+		}
+
+		try {
+			flight.done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (flight.cacheable) {
+			hitCount.incrementAndGet();
+			calculation.complete(flight.path);
+		} else {
+			// the other calculation was cancelled or failed
+			missCount.incrementAndGet();
+			calculation.calculate();
+		}
+	}
+
+	/**
+	 * Removes the routes of the collected graph snapshots
+	 */
+	private void purge() {
+		Reference<? extends CompiledGraph> reference;
+		while ((reference = collectedGraphs.poll()) != null) {
+			entries.remove(((GraphReference) reference).key);
+		}
+	}
+
+	/**
+	 * Gets the number of requests answered from the cache, including the
+	 * requests that waited for an identical calculation
+	 * @return The number of hits
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of requests that had to run the algorithm
+	 * @return The number of misses
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of cached routes
+	 * @return The number of routes
+	 */
+	public synchronized int size() {
+		purge();
+		return entries.size();
+	}
+
+	/**
+	 * Gets the maximum number of cached routes
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Removes all cached routes and resets the counters
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	/**
+	 * A running calculation other requests can wait for
+	 */
+	private static class Flight {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile Path path;
+		private volatile boolean cacheable = false;
+	}
+
+	/**
+	 * A weak reference to the graph snapshot of a key, enqueued when the
+	 * snapshot was collected
+	 */
+	private static final class GraphReference extends WeakReference<CompiledGraph> {
+
+		private final Key key;
+
+		public GraphReference(CompiledGraph graph, Key key, ReferenceQueue<CompiledGraph> queue) {
+			super(graph, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Identifies a route
+	 */
+	private static final class Key {
+
+		private final GraphReference graph;
+		private final Class<?> algorithmClass;
+		private final Map<String, Object> properties = new TreeMap<String, Object>();
+		private final int start;
+		private final int destination;
+		private final int hash;
+
+		public Key(PathCalculation calculation, CompiledGraph compiledGraph,
+				ReferenceQueue<CompiledGraph> queue) {
+			Algorithm algorithm = calculation.getAlgorithm();
+			graph = new GraphReference(compiledGraph, this, queue);
+			algorithmClass = algorithm.getClass();
+			for (PropertyInfo propertyInfo : algorithm.getPropertyInfos()) {
+				properties.put(propertyInfo.getName(), algorithm.getProperty(propertyInfo.getName()));
+			}
+			start = compiledGraph.getId(calculation.getStart());
+			destination = compiledGraph.getId(calculation.getDestination());
+
+			int result = System.identityHashCode(compiledGraph);
+			result = 31 * result + algorithmClass.hashCode();
+			result = 31 * result + properties.hashCode();
+			result = 31 * result + start;
+			result = 31 * result + destination;
+			hash = result;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			CompiledGraph compiledGraph = graph.get();
+			return compiledGraph != null && compiledGraph == other.graph.get()
+					&& algorithmClass == other.algorithmClass && start == other.start
+					&& destination == other.destination && properties.equals(other.properties);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.sf.pathfinder.model.CompiledGraph;
+
+/**
+ * The result of a one-to-all search: for every node of a compiled graph its
+ * distance from the source and the edge it was reached with. A path from the
+ * source to any node is built by following the parent edges back, in time
+ * proportional to the length of the path.
+ * <p>
+ * Trees are cached per compiled graph and source. The cached trees are only
+ * softly referenced, so they are evicted when memory runs low. A changed
+ * {@link net.sf.pathfinder.model.Graph} is compiled again, the trees of the
+ * old snapshot are not found anymore and are released together with it.
+ * </p>
+ */
+public final class ShortestPathTree {
+
+	private static final Map<CompiledGraph, Map<Integer, TreeReference>> treeCache = new WeakHashMap<CompiledGraph, Map<Integer, TreeReference>>();
+	private static final ReferenceQueue<ShortestPathTree> clearedTrees = new ReferenceQueue<ShortestPathTree>();
+
+	private final int source;
+	private final int[] parentEdges;
+	private final double[] distances;
+
+	/**
+	 * Creates a new tree
+	 * @param source The source node id
+	 * @param parentEdges The edge each node was reached with, -1 for the
+	 *            source and unreachable nodes
+	 * @param distances The distances from the source, infinity for
+	 *            unreachable nodes
+	 */
+	ShortestPathTree(int source, int[] parentEdges, double[] distances) {
+		this.source = source;
+		this.parentEdges = parentEdges;
+		this.distances = distances;
+	}
+
+	/**
+	 * Gets the cached tree of a source
+	 * @param graph The compiled graph
+	 * @param source The source node id
+	 * @return The tree or null, if there is none or it was evicted
+	 */
+	public static ShortestPathTree getCached(CompiledGraph graph, int source) {
+		synchronized (treeCache) {
+			expungeClearedTrees();
+			Map<Integer, TreeReference> graphTrees = treeCache.get(graph);
+			if (graphTrees == null) {
+				return null;
+			}
+			TreeReference reference = graphTrees.get(source);
+			return reference == null ? null : reference.get();
+		}
+	}
+
+	/**
+	 * Caches a tree, replacing the tree cached for the same source
+	 * @param graph The compiled graph the tree was calculated on
+	 * @param tree The tree
+	 */
+	public static void cache(CompiledGraph graph, ShortestPathTree tree) {
+		synchronized (treeCache) {
+			expungeClearedTrees();
+			Map<Integer, TreeReference> graphTrees = treeCache.get(graph);
+			if (graphTrees == null) {
+				graphTrees = new HashMap<Integer, TreeReference>();
+				treeCache.put(graph, graphTrees);
+			}
+			graphTrees.put(tree.source, new TreeReference(tree, graphTrees));
+		}
+	}
+
+	/**
+	 * Removes all cached trees
+	 */
+	public static void clearCache() {
+		synchronized (treeCache) {
+			treeCache.clear();
+			expungeClearedTrees();
+		}
+	}
+
+	/**
+	 * Removes the map entries of trees the garbage collector has cleared
+	 */
+	private static void expungeClearedTrees() {
+		Reference<? extends ShortestPathTree> reference;
+		while ((reference = clearedTrees.poll()) != null) {
+			TreeReference treeReference = (TreeReference) reference;
+			if (treeReference.graphTrees.get(treeReference.source) == treeReference) {
+				treeReference.graphTrees.remove(treeReference.source);
+			}
+		}
+	}
+
+	/**
+	 * Gets the source node id
+	 * @return The source
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the distance of a node from the source
+	 * @param node The node id
+	 * @return The distance, infinity if the node is not reachable
+	 */
+	public double getDistance(int node) {
+		return distances[node];
+	}
+
+	/**
+	 * Indicates whether a node is reachable from the source
+	 * @param node The node id
+	 * @return True if the node is reachable, otherwise false
+	 */
+	public boolean isReachable(int node) {
+		return distances[node] != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Gets the edge a node is reached with on its shortest path
+	 * @param node The node id
+	 * @return The edge id, -1 for the source and unreachable nodes
+	 */
+	public int getParentEdge(int node) {
+		return parentEdges[node];
+	}
+
+	/**
+	 * Gets the parent edges of all nodes, as used by
+	 * {@link Algorithm#buildPath(int, int[])}; the array must not be changed
+	 */
+	int[] getParentEdges() {
+		return parentEdges;
+	}
+
+	/**
+	 * Soft reference to a cached tree, which knows the map entry to remove
+	 * once the tree was cleared
+	 */
+	private static class TreeReference extends SoftReference<ShortestPathTree> {
+		private final int source;
+		private final Map<Integer, TreeReference> graphTrees;
+
+		public TreeReference(ShortestPathTree tree, Map<Integer, TreeReference> graphTrees) {
+			super(tree, clearedTrees);
+			this.source = tree.source;
+			this.graphTrees = graphTrees;
+		}
+	}
+}
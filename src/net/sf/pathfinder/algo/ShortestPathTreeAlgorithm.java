@@ -0,0 +1,126 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+import java.util.Arrays;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.IndexedHeap;
+
+
+/**
+ * One-to-all Dijkstra which keeps the whole shortest path tree of the start
+ * node. The search does not stop at the destination but settles every
+ * reachable node; the tree is cached (see {@link ShortestPathTree}), so every
+ * later route from the same start node is read from the tree without a
+ * search.
+ */
+
+public class ShortestPathTreeAlgorithm extends Algorithm {
+
+	public ShortestPathTreeAlgorithm() {
+	}
+
+	@Override
+	public boolean isSettlingNodes() {
+		return true;
+	}
+
+	@Override
+	protected void calculateRoute(Graph graph, Node start, Node destination) {
+		CompiledGraph compiled = getCompiledGraph();
+		int startId = compiled.getId(start);
+		int goalId = compiled.getId(destination);
+		if (startId < 0 || goalId < 0) {
+			onAlgorithmStep("No path found", new Path(), true, false);
+			return;
+		}
+
+		ShortestPathTree tree = ShortestPathTree.getCached(compiled, startId);
+		if (tree == null) {
+			tree = search(compiled, startId, goalId);
+			if (tree == null) {
+				return;
+			}
+			ShortestPathTree.cache(compiled, tree);
+		}
+
+		if (tree.isReachable(goalId)) {
+			onAlgorithmStep("Path found", buildPath(goalId, tree.getParentEdges()), true, true);
+		} else {
+			onAlgorithmStep("No path found", new Path(), true, false);
+		}
+	}
+
+	/**
+	 * Calculates the shortest path tree of the start node
+	 * @param compiled The compiled graph
+	 * @param startId The start node id
+	 * @param goalId The destination node id, only used to report the path
+	 *            if the search is cancelled
+	 * @return The tree or null, if the search was cancelled
+	 */
+	private ShortestPathTree search(CompiledGraph compiled, int startId, int goalId) {
+		int nodeCount = compiled.getNodeCount();
+		double[] distances = new double[nodeCount];
+		int[] parentEdges = new int[nodeCount];
+		NodeSet settled = getVisitedNodes();
+		IndexedHeap queue = new IndexedHeap(nodeCount);
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		Arrays.fill(parentEdges, -1);
+
+		distances[startId] = 0.0;
+		queue.insert(startId, 0.0);
+		while (!queue.isEmpty()) {
+			int current = queue.removeMin();
+			settled.add(current);
+			countSettledNode(false);
+			if (checkCancelled()) {
+				// the path to a settled destination is final, only the tree is incomplete
+				if (settled.contains(goalId)) {
+					onAlgorithmStep("Path found", buildPath(goalId, parentEdges), true, true);
+				} else {
+					onCancelled(buildPath(current, parentEdges));
+				}
+				return null;
+			}
+			addBackTrackingNode(compiled.getNode(current));
+			if (isObserved()) {
+				onAlgorithmStep("Visiting Node", buildPath(current, parentEdges), false, false);
+			}
+
+			int last = compiled.getLastEdge(current);
+			for (int edge = compiled.getFirstEdge(current); edge < last; edge++) {
+				int next = compiled.getTarget(edge);
+				if (settled.contains(next))
+					continue;
+				double value = distances[current] + compiled.getWeight(edge);
+				if (value < distances[next]) {
+					distances[next] = value;
+					parentEdges[next] = edge;
+					queue.insertOrDecrease(next, value);
+				}
+			}
+		}
+
+		return new ShortestPathTree(startId, parentEdges, distances);
+	}
+}
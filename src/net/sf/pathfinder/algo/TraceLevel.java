@@ -0,0 +1,42 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo;
+
+/**
+ * Defines which steps of a calculation are reported to the
+ * {@link AlgorithmListener} and thereby recorded for the replay.
+ * The final step, containing the resulting path, is always reported.
+ */
+public enum TraceLevel {
+	/**
+	 * Every step is reported
+	 */
+	FULL,
+	/**
+	 * Only every n-th step, or one step per time interval, is reported
+	 * @see Algorithm#setTraceSampleRate(int)
+	 * @see Algorithm#setTraceSampleInterval(long)
+	 */
+	SAMPLED,
+	/**
+	 * Only the final step is reported. The algorithms don't build any
+	 * intermediate paths and the backtracking nodes are only collected for
+	 * the final step, in the order of the node ids.
+	 */
+	FINAL_ONLY
+}
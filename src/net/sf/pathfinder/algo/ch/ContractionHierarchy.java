@@ -0,0 +1,292 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo.ch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.sf.pathfinder.algo.CancellationToken;
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.util.IntList;
+
+/**
+ * A contraction hierarchy of a {@link CompiledGraph}.
+ * Every node has a rank, the order it was contracted in. The arcs of the
+ * hierarchy are the edges of the graph plus the shortcuts added while
+ * contracting; a shortcut stands for the two arcs it bypasses.
+ * <p>
+ * The arcs are split into an upward graph, the arcs leading to a node of
+ * higher rank, indexed by their source, and a downward graph, the arcs coming
+ * from a node of higher rank, indexed by their target. A query searches the
+ * upward graph from the start and the downward graph backwards from the
+ * destination; both searches only climb the hierarchy.
+ * </p>
+ */
+public final class ContractionHierarchy {
+
+	// the entries must not reference their graph, otherwise they are never collected
+	private static final Map<CompiledGraph, Entry> hierarchies = new WeakHashMap<CompiledGraph, Entry>();
+
+	private final int[] ranks;
+	private final int[] arcSources;
+	private final int[] arcTargets;
+	private final double[] arcWeights;
+	private final int[] arcEdges;
+	private final int[] arcFirstChildren;
+	private final int[] arcSecondChildren;
+	private final int[] upwardOffsets;
+	private final int[] upwardArcs;
+	private final int[] downwardOffsets;
+	private final int[] downwardArcs;
+
+	ContractionHierarchy(int[] ranks, int[] arcSources,
+			int[] arcTargets, double[] arcWeights, int[] arcEdges,
+			int[] arcFirstChildren, int[] arcSecondChildren) {
+		this.ranks = ranks;
+		this.arcSources = arcSources;
+		this.arcTargets = arcTargets;
+		this.arcWeights = arcWeights;
+		this.arcEdges = arcEdges;
+		this.arcFirstChildren = arcFirstChildren;
+		this.arcSecondChildren = arcSecondChildren;
+
+		int nodeCount = ranks.length;
+		upwardOffsets = new int[nodeCount + 1];
+		downwardOffsets = new int[nodeCount + 1];
+		for (int arc = 0; arc < arcSources.length; arc++) {
+			if (isUpward(arc)) {
+				upwardOffsets[arcSources[arc] + 1]++;
+			} else {
+				downwardOffsets[arcTargets[arc] + 1]++;
+			}
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			upwardOffsets[i + 1] += upwardOffsets[i];
+			downwardOffsets[i + 1] += downwardOffsets[i];
+		}
+		upwardArcs = new int[upwardOffsets[nodeCount]];
+		downwardArcs = new int[downwardOffsets[nodeCount]];
+		int[] nextUpward = new int[nodeCount];
+		int[] nextDownward = new int[nodeCount];
+		System.arraycopy(upwardOffsets, 0, nextUpward, 0, nodeCount);
+		System.arraycopy(downwardOffsets, 0, nextDownward, 0, nodeCount);
+		for (int arc = 0; arc < arcSources.length; arc++) {
+			if (isUpward(arc)) {
+				upwardArcs[nextUpward[arcSources[arc]]++] = arc;
+			} else {
+				downwardArcs[nextDownward[arcTargets[arc]]++] = arc;
+			}
+		}
+	}
+
+	/**
+	 * Gets the hierarchy of the specified graph. The hierarchy is built on the
+	 * first request and kept as long as the compiled graph is in use. Only
+	 * requests for the same graph wait for a running build.
+	 * @param graph The compiled graph
+	 * @return The contraction hierarchy
+	 */
+	public static ContractionHierarchy getInstance(CompiledGraph graph) {
+		return getInstance(graph, null);
+	}
+
+	/**
+	 * Gets the hierarchy of the specified graph, see
+	 * {@link #getInstance(CompiledGraph)}. A build stopped by the token is not
+	 * kept, the next request starts a new one.
+	 * @param graph The compiled graph
+	 * @param token The token checked while building, may be null
+	 * @return The contraction hierarchy or null, if the build was cancelled
+	 */
+	public static ContractionHierarchy getInstance(CompiledGraph graph, CancellationToken token) {
+		Entry entry;
+		synchronized (hierarchies) {
+			entry = hierarchies.get(graph);
+			if (entry == null) {
+				entry = new Entry();
+				hierarchies.put(graph, entry);
+			}
+		}
+		synchronized (entry) {
+			if (entry.hierarchy == null) {
+				entry.hierarchy = new ContractionHierarchyBuilder(graph).build(token);
+			}
+			return entry.hierarchy;
+		}
+	}
+
+	private boolean isUpward(int arc) {
+		return ranks[arcSources[arc]] < ranks[arcTargets[arc]];
+	}
+
+	/**
+	 * Gets the rank of a node, the position in the contraction order
+	 * @param node The node id
+	 * @return The rank
+	 */
+	public int getRank(int node) {
+		return ranks[node];
+	}
+
+	/**
+	 * Gets the number of arcs, edges and shortcuts
+	 * @return The number of arcs
+	 */
+	public int getArcCount() {
+		return arcSources.length;
+	}
+
+	/**
+	 * Gets the number of shortcuts
+	 * @return The number of shortcuts
+	 */
+	public int getShortcutCount() {
+		int count = 0;
+		for (int edge : arcEdges) {
+			if (edge < 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the index of the first upward arc of a node
+	 * @param node The node id
+	 * @return The first index, use {@link #getUpwardArc(int)} to get the arc id
+	 */
+	public int getFirstUpwardArc(int node) {
+		return upwardOffsets[node];
+	}
+
+	/**
+	 * Gets the index behind the last upward arc of a node
+	 * @param node The node id
+	 * @return The exclusive upper bound of the node's upward arc indices
+	 */
+	public int getLastUpwardArc(int node) {
+		return upwardOffsets[node + 1];
+	}
+
+	/**
+	 * Gets the arc id of an upward arc index
+	 * @param index The index
+	 * @return The arc id, the source of the arc is the indexed node
+	 */
+	public int getUpwardArc(int index) {
+		return upwardArcs[index];
+	}
+
+	/**
+	 * Gets the index of the first downward arc into a node
+	 * @param node The node id
+	 * @return The first index, use {@link #getDownwardArc(int)} to get the arc
+	 *         id
+	 */
+	public int getFirstDownwardArc(int node) {
+		return downwardOffsets[node];
+	}
+
+	/**
+	 * Gets the index behind the last downward arc into a node
+	 * @param node The node id
+	 * @return The exclusive upper bound of the node's downward arc indices
+	 */
+	public int getLastDownwardArc(int node) {
+		return downwardOffsets[node + 1];
+	}
+
+	/**
+	 * Gets the arc id of a downward arc index
+	 * @param index The index
+	 * @return The arc id, the target of the arc is the indexed node
+	 */
+	public int getDownwardArc(int index) {
+		return downwardArcs[index];
+	}
+
+	/**
+	 * Gets the source node of an arc
+	 * @param arc The arc id
+	 * @return The source node id
+	 */
+	public int getArcSource(int arc) {
+		return arcSources[arc];
+	}
+
+	/**
+	 * Gets the target node of an arc
+	 * @param arc The arc id
+	 * @return The target node id
+	 */
+	public int getArcTarget(int arc) {
+		return arcTargets[arc];
+	}
+
+	/**
+	 * Gets the weight of an arc
+	 * @param arc The arc id
+	 * @return The weight
+	 */
+	public double getArcWeight(int arc) {
+		return arcWeights[arc];
+	}
+
+	/**
+	 * Indicates whether an arc is a shortcut
+	 * @param arc The arc id
+	 * @return True if the arc is a shortcut, false if it is an edge of the graph
+	 */
+	public boolean isShortcut(int arc) {
+		return arcEdges[arc] < 0;
+	}
+
+	/**
+	 * Unpacks an arc into the steps along the edges of the graph. For every
+	 * edge a step with its source node is appended; the target node of the
+	 * last edge is not added.
+	 * @param graph The graph the hierarchy was built for
+	 * @param arc The arc id
+	 * @param steps The list to append the steps to
+	 */
+	public void unpack(CompiledGraph graph, int arc, List<Path.PathStep> steps) {
+		IntList stack = new IntList();
+		stack.add(arc);
+		while (stack.size() > 0) {
+			int current = stack.removeLast();
+			int edge = arcEdges[current];
+			if (edge >= 0) {
+				steps.add(new Path.PathStep(graph.getNode(graph.getSource(edge)),
+						graph.getEdge(edge)));
+			} else {
+				stack.add(arcSecondChildren[current]);
+				stack.add(arcFirstChildren[current]);
+			}
+		}
+	}
+
+	/**
+	 * The cache entry of a graph, building the hierarchy locks the entry
+	 * instead of the whole cache
+	 */
+	private static class Entry {
+		private ContractionHierarchy hierarchy;
+	}
+}
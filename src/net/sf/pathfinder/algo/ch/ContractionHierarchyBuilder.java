@@ -0,0 +1,482 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.algo.ch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import net.sf.pathfinder.algo.CancellationToken;
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.util.IndexedHeap;
+import net.sf.pathfinder.util.IntList;
+
+/**
+ * Builds the {@link ContractionHierarchy} of a compiled graph.
+ * <p>
+ * Nodes are ordered by their priority, the edge difference (the number of
+ * shortcuts contracting the node would add minus the number of arcs it
+ * removes) plus the number of already contracted neighbours. In every round
+ * all nodes whose priority is lower than the priority of each of their
+ * neighbours are contracted. These nodes form an independent set, so their
+ * witness searches run in parallel on a thread pool; the searches ignore all
+ * nodes of the set, so the shortcuts of one node never rely on another node
+ * contracted in the same round.
+ * </p>
+ */
+public class ContractionHierarchyBuilder {
+
+	/**
+	 * Maximum number of nodes a witness search settles, before it gives up
+	 * and the shortcut is added
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final CompiledGraph graph;
+	private final int nodeCount;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private CancellationToken token;
+
+	private int arcCount = 0;
+	private int[] arcSources;
+	private int[] arcTargets;
+	private double[] arcWeights;
+	private int[] arcEdges;
+	private int[] arcFirstChildren;
+	private int[] arcSecondChildren;
+
+	private final IntList[] outgoingArcs;
+	private final IntList[] incomingArcs;
+	private final boolean[] contracted;
+	private final boolean[] inBatch;
+	private final int[] priorities;
+	private final int[] deletedNeighbours;
+	private final int[] ranks;
+
+	private final ThreadLocal<WitnessSearch> witnessSearches = new ThreadLocal<WitnessSearch>() {
+		@Override
+		protected WitnessSearch initialValue() {
+			return new WitnessSearch();
+		}
+	};
+
+	/**
+	 * Creates a new builder
+	 * @param graph The graph to build the hierarchy for
+	 */
+	public ContractionHierarchyBuilder(CompiledGraph graph) {
+		this.graph = graph;
+		this.nodeCount = graph.getNodeCount();
+
+		int capacity = Math.max(graph.getEdgeCount() * 2, 16);
+		arcSources = new int[capacity];
+		arcTargets = new int[capacity];
+		arcWeights = new double[capacity];
+		arcEdges = new int[capacity];
+		arcFirstChildren = new int[capacity];
+		arcSecondChildren = new int[capacity];
+
+		outgoingArcs = new IntList[nodeCount];
+		incomingArcs = new IntList[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			outgoingArcs[i] = new IntList(4);
+			incomingArcs[i] = new IntList(4);
+		}
+		contracted = new boolean[nodeCount];
+		inBatch = new boolean[nodeCount];
+		priorities = new int[nodeCount];
+		deletedNeighbours = new int[nodeCount];
+		ranks = new int[nodeCount];
+	}
+
+	/**
+	 * Sets the number of threads used for the witness searches
+	 * @param threadCount The number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(threadCount, 1);
+	}
+
+	/**
+	 * Builds the hierarchy
+	 * @return The contraction hierarchy
+	 */
+	public ContractionHierarchy build() {
+		return build(null);
+	}
+
+	/**
+	 * Builds the hierarchy, unless the token is cancelled. The token is
+	 * checked before every witness search.
+	 * @param token The cancellation token, may be null
+	 * @return The contraction hierarchy or null, if the build was cancelled
+	 */
+	public ContractionHierarchy build(CancellationToken token) {
+		this.token = token;
+		for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+			int source = graph.getSource(edge);
+			int target = graph.getTarget(edge);
+			if (source == target) {
+				continue;
+			}
+			int arc = findArc(source, target);
+			if (arc < 0) {
+				addArc(source, target, graph.getWeight(edge), edge, -1, -1);
+			} else if (graph.getWeight(edge) < arcWeights[arc]) {
+				arcWeights[arc] = graph.getWeight(edge);
+				arcEdges[arc] = edge;
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "Contraction");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			int[] remaining = new int[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				remaining[i] = i;
+			}
+			updatePriorities(executor, remaining);
+
+			int rank = 0;
+			boolean[] marked = new boolean[nodeCount];
+			while (remaining.length > 0) {
+				if (isCancelled()) {
+					return null;
+				}
+				IntList batch = new IntList();
+				for (int node : remaining) {
+					if (isLocalMinimum(node)) {
+						batch.add(node);
+						inBatch[node] = true;
+					}
+				}
+
+				final int[] nodes = batch.toArray();
+				final int[][] shortcuts = new int[nodes.length][];
+				runParallel(executor, nodes, new NodeTask() {
+					@Override
+					public void process(int index, WitnessSearch search) {
+						IntList result = new IntList();
+						search.findShortcuts(nodes[index], result);
+						shortcuts[index] = result.toArray();
+					}
+				});
+
+				IntList neighbours = new IntList();
+				for (int i = 0; i < nodes.length; i++) {
+					contract(nodes[i], shortcuts[i], neighbours, marked);
+					ranks[nodes[i]] = rank++;
+				}
+				for (int node : nodes) {
+					inBatch[node] = false;
+				}
+
+				int[] changed = neighbours.toArray();
+				for (int node : changed) {
+					marked[node] = false;
+				}
+				updatePriorities(executor, changed);
+
+				IntList left = new IntList(remaining.length);
+				for (int node : remaining) {
+					if (!contracted[node]) {
+						left.add(node);
+					}
+				}
+				remaining = left.toArray();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (isCancelled()) {
+			return null;
+		}
+
+		return new ContractionHierarchy(ranks, Arrays.copyOf(arcSources,
+				arcCount), Arrays.copyOf(arcTargets, arcCount), Arrays.copyOf(
+				arcWeights, arcCount), Arrays.copyOf(arcEdges, arcCount), Arrays
+				.copyOf(arcFirstChildren, arcCount), Arrays.copyOf(
+				arcSecondChildren, arcCount));
+	}
+
+	/**
+	 * Calculates the priorities of the specified nodes
+	 */
+	private void updatePriorities(ExecutorService executor, final int[] nodes) {
+		runParallel(executor, nodes, new NodeTask() {
+			@Override
+			public void process(int index, WitnessSearch search) {
+				int node = nodes[index];
+				int shortcuts = search.findShortcuts(node, null);
+				int removed = outgoingArcs[node].size() + incomingArcs[node].size();
+				priorities[node] = shortcuts - removed + deletedNeighbours[node];
+			}
+		});
+	}
+
+	/**
+	 * Indicates whether the node has a lower priority than all its
+	 * neighbours. Equal priorities are decided by the node id.
+	 */
+	private boolean isLocalMinimum(int node) {
+		for (int i = 0; i < outgoingArcs[node].size(); i++) {
+			if (!isLower(node, arcTargets[outgoingArcs[node].get(i)])) {
+				return false;
+			}
+		}
+		for (int i = 0; i < incomingArcs[node].size(); i++) {
+			if (!isLower(node, arcSources[incomingArcs[node].get(i)])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isLower(int node, int other) {
+		return priorities[node] < priorities[other]
+				|| (priorities[node] == priorities[other] && node < other);
+	}
+
+	/**
+	 * Contracts a node: adds its shortcuts and removes its arcs from the
+	 * remaining graph
+	 */
+	private void contract(int node, int[] shortcuts, IntList neighbours,
+			boolean[] marked) {
+		for (int i = 0; i < shortcuts.length; i += 2) {
+			int first = shortcuts[i];
+			int second = shortcuts[i + 1];
+			int source = arcSources[first];
+			int target = arcTargets[second];
+			double weight = arcWeights[first] + arcWeights[second];
+
+			int arc = findArc(source, target);
+			if (arc < 0) {
+				addArc(source, target, weight, -1, first, second);
+			} else if (weight < arcWeights[arc]) {
+				arcWeights[arc] = weight;
+				arcEdges[arc] = -1;
+				arcFirstChildren[arc] = first;
+				arcSecondChildren[arc] = second;
+			}
+		}
+
+		IntList outgoing = outgoingArcs[node];
+		for (int i = 0; i < outgoing.size(); i++) {
+			int arc = outgoing.get(i);
+			int target = arcTargets[arc];
+			incomingArcs[target].removeValue(arc);
+			markNeighbour(target, neighbours, marked);
+		}
+		IntList incoming = incomingArcs[node];
+		for (int i = 0; i < incoming.size(); i++) {
+			int arc = incoming.get(i);
+			int source = arcSources[arc];
+			outgoingArcs[source].removeValue(arc);
+			markNeighbour(source, neighbours, marked);
+		}
+		contracted[node] = true;
+	}
+
+	private void markNeighbour(int node, IntList neighbours, boolean[] marked) {
+		deletedNeighbours[node]++;
+		if (!marked[node]) {
+			marked[node] = true;
+			neighbours.add(node);
+		}
+	}
+
+	private int findArc(int source, int target) {
+		IntList outgoing = outgoingArcs[source];
+		for (int i = 0; i < outgoing.size(); i++) {
+			if (arcTargets[outgoing.get(i)] == target) {
+				return outgoing.get(i);
+			}
+		}
+		return -1;
+	}
+
+	private void addArc(int source, int target, double weight, int edge,
+			int firstChild, int secondChild) {
+		if (arcCount == arcSources.length) {
+			int capacity = arcCount * 2;
+			arcSources = Arrays.copyOf(arcSources, capacity);
+			arcTargets = Arrays.copyOf(arcTargets, capacity);
+			arcWeights = Arrays.copyOf(arcWeights, capacity);
+			arcEdges = Arrays.copyOf(arcEdges, capacity);
+			arcFirstChildren = Arrays.copyOf(arcFirstChildren, capacity);
+			arcSecondChildren = Arrays.copyOf(arcSecondChildren, capacity);
+		}
+		arcSources[arcCount] = source;
+		arcTargets[arcCount] = target;
+		arcWeights[arcCount] = weight;
+		arcEdges[arcCount] = edge;
+		arcFirstChildren[arcCount] = firstChild;
+		arcSecondChildren[arcCount] = secondChild;
+		outgoingArcs[source].add(arcCount);
+		incomingArcs[target].add(arcCount);
+		arcCount++;
+	}
+
+	/**
+	 * Processes the nodes in chunks on the executor, every thread with its own
+	 * witness search. Returns when all nodes are processed.
+	 */
+	private void runParallel(ExecutorService executor, int[] nodes,
+			final NodeTask task) {
+		int chunkSize = Math.max(64, nodes.length / (threadCount * 4) + 1);
+		List<Callable<Object>> chunks = new ArrayList<Callable<Object>>();
+		for (int start = 0; start < nodes.length; start += chunkSize) {
+			final int from = start;
+			final int to = Math.min(start + chunkSize, nodes.length);
+			chunks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					WitnessSearch search = witnessSearches.get();
+					for (int i = from; i < to && !isCancelled(); i++) {
+						task.process(i, search);
+					}
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Object> future : executor.invokeAll(chunks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Contraction was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Contraction failed", e.getCause());
+		}
+	}
+
+	private boolean isCancelled() {
+		return token != null && token.isCancelled();
+	}
+
+	/**
+	 * Work done for one node of a parallel run
+	 */
+	private interface NodeTask {
+		void process(int index, WitnessSearch search);
+	}
+
+	/**
+	 * A local Dijkstra search in the remaining graph, looking for paths that
+	 * are not longer than a potential shortcut. Each thread uses its own
+	 * instance; the graph is only read.
+	 */
+	private class WitnessSearch {
+
+		private final double[] distances = new double[nodeCount];
+		private final int[] stamps = new int[nodeCount];
+		private final IndexedHeap queue = new IndexedHeap(nodeCount);
+		private int stamp = 0;
+
+		/**
+		 * Finds the shortcuts needed to contract a node
+		 * @param node The node
+		 * @param result List the pairs of arcs to bypass are added to, may be
+		 *            null to just count the shortcuts
+		 * @return The number of shortcuts
+		 */
+		int findShortcuts(int node, IntList result) {
+			IntList incoming = incomingArcs[node];
+			IntList outgoing = outgoingArcs[node];
+			double maxOutgoing = 0.0;
+			for (int i = 0; i < outgoing.size(); i++) {
+				maxOutgoing = Math.max(maxOutgoing, arcWeights[outgoing.get(i)]);
+			}
+
+			int count = 0;
+			for (int i = 0; i < incoming.size(); i++) {
+				int first = incoming.get(i);
+				int source = arcSources[first];
+				search(source, node, arcWeights[first] + maxOutgoing);
+
+				for (int j = 0; j < outgoing.size(); j++) {
+					int second = outgoing.get(j);
+					int target = arcTargets[second];
+					if (target == source) {
+						continue;
+					}
+					double length = arcWeights[first] + arcWeights[second];
+					if (getDistance(target) > length) {
+						count++;
+						if (result != null) {
+							result.add(first);
+							result.add(second);
+						}
+					}
+				}
+			}
+			return count;
+		}
+
+		private void search(int source, int excluded, double maxDistance) {
+			stamp++;
+			queue.clear();
+			distances[source] = 0.0;
+			stamps[source] = stamp;
+			queue.insert(source, 0.0);
+
+			int settled = 0;
+			while (!queue.isEmpty() && queue.peekKey() <= maxDistance
+					&& settled < WITNESS_SETTLE_LIMIT) {
+				int current = queue.removeMin();
+				settled++;
+
+				IntList outgoing = outgoingArcs[current];
+				for (int i = 0; i < outgoing.size(); i++) {
+					int arc = outgoing.get(i);
+					int next = arcTargets[arc];
+					if (next == excluded || inBatch[next]) {
+						continue;
+					}
+					double distance = distances[current] + arcWeights[arc];
+					if (stamps[next] != stamp || distance < distances[next]) {
+						distances[next] = distance;
+						stamps[next] = stamp;
+						queue.insertOrDecrease(next, distance);
+					}
+				}
+			}
+		}
+
+		private double getDistance(int node) {
+			return stamps[node] == stamp ? distances[node]
+					: Double.POSITIVE_INFINITY;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.batch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sf.pathfinder.util.StringUtils;
+
+/**
+ * A route query of a batch. A query is one line of the form
+ * <pre>source;destination[;algorithm][;property=value]...</pre>
+ * Source and destination are node names, the algorithm is the name of an
+ * algorithm as shown in the application; if it's missing or empty, the
+ * default algorithm of the batch is used. The properties are set on the
+ * algorithm by their names, e.g. <code>Heuristic=Air Line</code>.
+ */
+public class BatchQuery {
+
+	/**
+	 * Separator of the fields of a query line
+	 */
+	public static final char SEPARATOR = ';';
+
+	private final int lineNumber;
+	private final String source;
+	private final String destination;
+	private final String algorithm;
+	private final Map<String, String> properties;
+
+	/**
+	 * Creates a new query
+	 * @param lineNumber The line of the query in the input, starting at 1
+	 * @param source Name of the source node
+	 * @param destination Name of the destination node
+	 * @param algorithm Name of the algorithm, null for the default algorithm
+	 * @param properties Algorithm properties by name
+	 */
+	public BatchQuery(int lineNumber, String source, String destination, String algorithm,
+			Map<String, String> properties) {
+		this.lineNumber = lineNumber;
+		this.source = source;
+		this.destination = destination;
+		this.algorithm = algorithm;
+		this.properties = properties;
+	}
+
+	/**
+	 * Parses a query line
+	 * @param line The line
+	 * @param lineNumber The number of the line in the input
+	 * @return The query
+	 * @throws IllegalArgumentException If the line is not a valid query
+	 */
+	public static BatchQuery parse(String line, int lineNumber) {
+		String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+		if (fields.length < 2) {
+			throw new IllegalArgumentException("Source and destination expected");
+		}
+
+		String source = fields[0].trim();
+		String destination = fields[1].trim();
+		if (StringUtils.isNullOrEmpty(source) || StringUtils.isNullOrEmpty(destination)) {
+			throw new IllegalArgumentException("Source and destination expected");
+		}
+
+		String algorithm = null;
+		int index = 2;
+		if (fields.length > 2 && fields[2].indexOf('=') < 0) {
+			algorithm = fields[2].trim();
+			if (algorithm.length() == 0) {
+				algorithm = null;
+			}
+			index++;
+		}
+
+		Map<String, String> properties = new LinkedHashMap<String, String>();
+		for (; index < fields.length; index++) {
+			String field = fields[index].trim();
+			if (field.length() == 0) {
+				continue;
+			}
+			int separator = field.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Property expected: " + field);
+			}
+			properties.put(field.substring(0, separator).trim(), field.substring(separator + 1).trim());
+		}
+
+		return new BatchQuery(lineNumber, source, destination, algorithm, properties);
+	}
+
+	/**
+	 * Indicates whether a line is a comment or empty and has to be skipped
+	 * @param line The line
+	 * @return True if the line is no query
+	 */
+	public static boolean isSkipped(String line) {
+		String trimmed = line.trim();
+		return trimmed.length() == 0 || trimmed.charAt(0) == '#';
+	}
+
+	/**
+	 * Gets the line of the query in the input
+	 * @return The line number, starting at 1
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Gets the name of the source node
+	 * @return The source
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the name of the destination node
+	 * @return The destination
+	 */
+	public String getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the name of the algorithm
+	 * @return The algorithm name, null for the default algorithm
+	 */
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Gets the algorithm properties
+	 * @return The property values by property name
+	 */
+	public Map<String, String> getProperties() {
+		return properties;
+	}
+}
@@ -0,0 +1,156 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.batch;
+
+/**
+ * The result of a {@link BatchQuery}
+ */
+public class BatchResult {
+
+	private final BatchQuery query;
+	private final String algorithm;
+	private boolean pathFound;
+	private boolean complete;
+	private double length = Double.NaN;
+	private int pathNodes;
+	private double duration;
+	private int expandedNodes;
+	private int settledNodes = -1;
+	private String error;
+
+	/**
+	 * Creates a new result
+	 * @param query The query
+	 * @param algorithm Name of the algorithm used for the query
+	 */
+	public BatchResult(BatchQuery query, String algorithm) {
+		this.query = query;
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * Creates the result of a query that could not be calculated
+	 * @param query The query
+	 * @param algorithm Name of the algorithm
+	 * @param error The error message
+	 * @return The result
+	 */
+	public static BatchResult failed(BatchQuery query, String algorithm, String error) {
+		BatchResult result = new BatchResult(query, algorithm);
+		result.error = error;
+		return result;
+	}
+
+	public BatchQuery getQuery() {
+		return query;
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public boolean isPathFound() {
+		return pathFound;
+	}
+
+	public void setPathFound(boolean pathFound) {
+		this.pathFound = pathFound;
+	}
+
+	/**
+	 * Indicates whether the calculation ran to completion, i.e. it was not
+	 * stopped by a budget
+	 * @return True if the calculation is complete
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 * Gets the length of the path
+	 * @return The length, <code>NaN</code> if no path was found
+	 */
+	public double getLength() {
+		return length;
+	}
+
+	public void setLength(double length) {
+		this.length = length;
+	}
+
+	/**
+	 * Gets the number of nodes of the path
+	 * @return The number of nodes
+	 */
+	public int getPathNodes() {
+		return pathNodes;
+	}
+
+	public void setPathNodes(int pathNodes) {
+		this.pathNodes = pathNodes;
+	}
+
+	/**
+	 * Gets the duration of the calculation
+	 * @return The duration in milliseconds
+	 */
+	public double getDuration() {
+		return duration;
+	}
+
+	public void setDuration(double duration) {
+		this.duration = duration;
+	}
+
+	/**
+	 * Gets the number of nodes the algorithm expanded
+	 * @return The number of expanded nodes
+	 */
+	public int getExpandedNodes() {
+		return expandedNodes;
+	}
+
+	public void setExpandedNodes(int expandedNodes) {
+		this.expandedNodes = expandedNodes;
+	}
+
+	/**
+	 * Gets the number of nodes settled by the forward and backward search of
+	 * label-setting algorithms
+	 * @return The number of settled nodes, -1 for other algorithms
+	 */
+	public int getSettledNodes() {
+		return settledNodes;
+	}
+
+	public void setSettledNodes(int settledNodes) {
+		this.settledNodes = settledNodes;
+	}
+
+	/**
+	 * Gets the error message
+	 * @return The message, null if the query was calculated
+	 */
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,163 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes {@link BatchResult}s as CSV, one row per result after a header row,
+ * or as JSON lines, one object per result. Every result is flushed as soon as
+ * it is written, so results can be consumed while the batch is running.
+ */
+public class BatchResultWriter {
+
+	/**
+	 * Comma separated values
+	 */
+	public static final String FORMAT_CSV = "csv";
+	/**
+	 * One JSON object per line
+	 */
+	public static final String FORMAT_JSON = "json";
+
+	private static final String[] COLUMNS = { "line", "source", "destination", "algorithm",
+			"found", "complete", "length", "pathNodes", "durationMillis", "expandedNodes",
+			"settledNodes", "error" };
+	private static final boolean[] TEXT_COLUMNS = { false, true, true, true, false, false,
+			false, false, false, false, false, true };
+
+	private final Writer writer;
+	private final boolean json;
+	private boolean headerWritten = false;
+
+	/**
+	 * Creates a new writer
+	 * @param writer The writer to write to
+	 * @param format {@link #FORMAT_CSV} or {@link #FORMAT_JSON}
+	 */
+	public BatchResultWriter(Writer writer, String format) {
+		if (!FORMAT_CSV.equals(format) && !FORMAT_JSON.equals(format)) {
+			throw new IllegalArgumentException("Unknown format: " + format);
+		}
+		this.writer = writer;
+		this.json = FORMAT_JSON.equals(format);
+	}
+
+	/**
+	 * Writes a result
+	 * @param result The result
+	 * @throws IOException If the result can't be written
+	 */
+	public void write(BatchResult result) throws IOException {
+		BatchQuery query = result.getQuery();
+		String[] values = { String.valueOf(query.getLineNumber()), query.getSource(),
+				query.getDestination(), result.getAlgorithm(),
+				String.valueOf(result.isPathFound()), String.valueOf(result.isComplete()),
+				Double.isNaN(result.getLength()) ? null : String.valueOf(result.getLength()),
+				String.valueOf(result.getPathNodes()),
+				String.format(Locale.ROOT, "%.3f", result.getDuration()),
+				String.valueOf(result.getExpandedNodes()),
+				result.getSettledNodes() < 0 ? null : String.valueOf(result.getSettledNodes()),
+				result.getError() };
+
+		StringBuilder sb = new StringBuilder();
+		if (json) {
+			sb.append('{');
+			for (int i = 0; i < COLUMNS.length; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append('"').append(COLUMNS[i]).append("\":");
+				appendJson(sb, values[i], TEXT_COLUMNS[i]);
+			}
+			sb.append('}');
+		} else {
+			if (!headerWritten) {
+				for (int i = 0; i < COLUMNS.length; i++) {
+					if (i > 0) {
+						sb.append(',');
+					}
+					sb.append(COLUMNS[i]);
+				}
+				sb.append('\n');
+				headerWritten = true;
+			}
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendCsv(sb, values[i]);
+			}
+		}
+		sb.append('\n');
+
+		writer.write(sb.toString());
+		writer.flush();
+	}
+
+	private static void appendCsv(StringBuilder sb, String text) {
+		if (text == null) {
+			return;
+		}
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+				&& text.indexOf('\r') < 0) {
+			sb.append(text);
+			return;
+		}
+		sb.append('"').append(text.replace("\"", "\"\"")).append('"');
+	}
+
+	private static void appendJson(StringBuilder sb, String text, boolean quoted) {
+		if (text == null) {
+			sb.append("null");
+		} else if (quoted) {
+			sb.append('"');
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+				}
+			}
+			sb.append('"');
+		} else {
+			sb.append(text);
+		}
+	}
+}
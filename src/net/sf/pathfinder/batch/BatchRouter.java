@@ -0,0 +1,416 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.bind.JAXBException;
+
+import net.sf.pathfinder.algo.Algorithm;
+import net.sf.pathfinder.algo.AlgorithmDescriptor;
+import net.sf.pathfinder.algo.CalculationListener;
+import net.sf.pathfinder.algo.PathCalculation;
+import net.sf.pathfinder.algo.TraceLevel;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.GraphPackage;
+import net.sf.pathfinder.model.Node;
+import net.sf.pathfinder.model.Path;
+import net.sf.pathfinder.model.PathStatistics;
+import net.sf.pathfinder.util.properties.PropertyInfo;
+
+/**
+ * Calculates a batch of route queries without user interface, e.g.
+ * <pre>java -Djava.awt.headless=true -cp ... net.sf.pathfinder.batch.BatchRouter
+ *     -input queries.txt -format json graph/deutschland.xml</pre>
+ * The queries (see {@link BatchQuery}) are read line by line and calculated
+ * in parallel; the results are written in the order the calculations finish,
+ * the <code>line</code> column refers to the query. Only the final path of
+ * every calculation is recorded.
+ */
+public class BatchRouter {
+
+	/**
+	 * Name of the algorithm used by queries that don't name one
+	 */
+	public static final String DEFAULT_ALGORITHM = "Dijkstra";
+
+	private static final String USAGE = "Usage: BatchRouter [options] <graph package or graph file>\n"
+			+ "Options:\n"
+			+ "  -input <file>       File with one query per line, default: standard input\n"
+			+ "  -output <file>      Result file, default: standard output\n"
+			+ "  -format csv|json    Result format, default: csv\n"
+			+ "  -algorithm <name>   Algorithm of queries without algorithm, default: " + DEFAULT_ALGORITHM + "\n"
+			+ "  -threads <count>    Number of parallel calculations, default: number of processors\n"
+			+ "Query lines: source;destination[;algorithm][;property=value]...\n"
+			+ "Empty lines and lines starting with # are skipped.";
+
+	private final Graph graph;
+	private String defaultAlgorithm = DEFAULT_ALGORITHM;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a new batch router
+	 * @param graph The graph to calculate the routes on
+	 */
+	public BatchRouter(Graph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Sets the algorithm of queries that don't name one
+	 * @param defaultAlgorithm The algorithm name
+	 */
+	public void setDefaultAlgorithm(String defaultAlgorithm) {
+		this.defaultAlgorithm = defaultAlgorithm;
+	}
+
+	/**
+	 * Sets the number of parallel calculations
+	 * @param threadCount The number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Calculates all queries of the input. At most a few queries per thread
+	 * are read ahead, so the input may be arbitrarily long.
+	 * @param input The query lines
+	 * @param output The writer for the results
+	 * @return The number of queries that could not be calculated
+	 * @throws IOException If the input can't be read or the output can't be
+	 *             written
+	 */
+	public int run(BufferedReader input, BatchResultWriter output) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		CompletionService<BatchResult> completionService = new ExecutorCompletionService<BatchResult>(executor);
+		int maxPending = threadCount * 4;
+		int pending = 0;
+		int failed = 0;
+		int lineNumber = 0;
+		try {
+			String line;
+			while ((line = input.readLine()) != null) {
+				lineNumber++;
+				if (BatchQuery.isSkipped(line)) {
+					continue;
+				}
+
+				final BatchQuery query;
+				try {
+					query = BatchQuery.parse(line, lineNumber);
+				} catch (IllegalArgumentException e) {
+					BatchQuery invalid = new BatchQuery(lineNumber, line.trim(), null, null,
+							Collections.<String, String> emptyMap());
+					output.write(BatchResult.failed(invalid, null, e.getMessage()));
+					failed++;
+					continue;
+				}
+
+				completionService.submit(new Callable<BatchResult>() {
+					@Override
+					public BatchResult call() {
+						return calculate(query);
+					}
+				});
+				pending++;
+				while (pending >= maxPending) {
+					failed += write(completionService, output);
+					pending--;
+				}
+			}
+			while (pending > 0) {
+				failed += write(completionService, output);
+				pending--;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Batch was interrupted", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		return failed;
+	}
+
+	/**
+	 * Writes the next finished result
+	 * @return 1 if the query failed, otherwise 0
+	 */
+	private static int write(CompletionService<BatchResult> completionService,
+			BatchResultWriter output) throws InterruptedException, IOException {
+		BatchResult result;
+		try {
+			result = completionService.take().get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Calculation failed", e.getCause());
+		}
+		output.write(result);
+		return result.getError() == null ? 0 : 1;
+	}
+
+	/**
+	 * Calculates a single query
+	 * @param query The query
+	 * @return The result
+	 */
+	public BatchResult calculate(BatchQuery query) {
+		String algorithmName = query.getAlgorithm() != null ? query.getAlgorithm() : defaultAlgorithm;
+		AlgorithmDescriptor descriptor = findAlgorithm(algorithmName);
+		if (descriptor == null) {
+			return BatchResult.failed(query, algorithmName, "Unknown algorithm: " + algorithmName);
+		}
+		algorithmName = descriptor.getName();
+
+		Node source = graph.findNode(query.getSource());
+		if (source == null) {
+			return BatchResult.failed(query, algorithmName, "Unknown node: " + query.getSource());
+		}
+		Node destination = graph.findNode(query.getDestination());
+		if (destination == null) {
+			return BatchResult.failed(query, algorithmName, "Unknown node: " + query.getDestination());
+		}
+
+		Algorithm algorithm = Algorithm.newInstance(descriptor);
+		if (algorithm == null) {
+			return BatchResult.failed(query, algorithmName, "Can't create algorithm: " + algorithmName);
+		}
+		try {
+			setProperties(algorithm, query.getProperties());
+		} catch (IllegalArgumentException e) {
+			return BatchResult.failed(query, algorithmName, e.getMessage());
+		}
+
+		final PathStatistics[] statistics = new PathStatistics[1];
+		PathCalculation calculation = new PathCalculation(algorithm, graph, source, destination,
+				new CalculationListener() {
+					@Override
+					public void calculationCompleted(PathCalculation calculation,
+							PathStatistics pathStatistics) {
+						statistics[0] = pathStatistics;
+					}
+				});
+		calculation.setTraceLevel(TraceLevel.FINAL_ONLY);
+
+		long startNanos = System.nanoTime();
+		try {
+			calculation.run();
+		} catch (RuntimeException e) {
+			return BatchResult.failed(query, algorithmName, e.toString());
+		}
+		long endNanos = System.nanoTime();
+
+		BatchResult result = new BatchResult(query, algorithmName);
+		result.setDuration((endNanos - startNanos) / 1000000.0);
+		result.setExpandedNodes(algorithm.getExpandedCount());
+		if (statistics[0] == null) {
+			return result;
+		}
+		result.setPathFound(statistics[0].isPathFound());
+		result.setComplete(statistics[0].isComplete());
+		if (algorithm.isSettlingNodes()) {
+			result.setSettledNodes(statistics[0].getForwardSettledCount()
+					+ statistics[0].getBackwardSettledCount());
+		}
+		Path path = statistics[0].getLastPath();
+		if (statistics[0].isPathFound() && path != null) {
+			result.setLength(path.getLength());
+			result.setPathNodes(path.getPathSteps().size());
+		}
+		return result;
+	}
+
+	private static AlgorithmDescriptor findAlgorithm(String name) {
+		for (AlgorithmDescriptor descriptor : Algorithm.getAlgorithms()) {
+			if (descriptor.getName().equalsIgnoreCase(name)) {
+				return descriptor;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the algorithm properties, converted to the type of the property
+	 * @throws IllegalArgumentException If a property is unknown or its value
+	 *             is not valid
+	 */
+	private static void setProperties(Algorithm algorithm, Map<String, String> properties) {
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			PropertyInfo propertyInfo = null;
+			for (PropertyInfo info : algorithm.getPropertyInfos()) {
+				if (info.getName().equalsIgnoreCase(property.getKey())) {
+					propertyInfo = info;
+					break;
+				}
+			}
+			if (propertyInfo == null) {
+				throw new IllegalArgumentException("Unknown property: " + property.getKey());
+			}
+			algorithm.setProperty(propertyInfo.getName(), parseValue(propertyInfo, property.getValue()));
+		}
+	}
+
+	private static Object parseValue(PropertyInfo propertyInfo, String value) {
+		Object[] possibleValues = propertyInfo.getPossibleValues();
+		boolean range = possibleValues != null && possibleValues.length >= 3
+				&& PropertyInfo.RANGE.equals(possibleValues[0]);
+		String invalid = "Invalid value for " + propertyInfo.getName() + ": " + value;
+
+		if (Integer.class.equals(propertyInfo.getType()) || Double.class.equals(propertyInfo.getType())) {
+			Number number;
+			try {
+				number = Integer.class.equals(propertyInfo.getType()) ? (Number) Integer.valueOf(value)
+						: (Number) Double.valueOf(value);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(invalid);
+			}
+			if (range && (number.doubleValue() < ((Number) possibleValues[1]).doubleValue()
+					|| number.doubleValue() > ((Number) possibleValues[2]).doubleValue())) {
+				throw new IllegalArgumentException(invalid);
+			}
+			return number;
+		}
+		if (Boolean.class.equals(propertyInfo.getType())) {
+			return Boolean.valueOf(value);
+		}
+		if (possibleValues != null && !range) {
+			for (Object possibleValue : possibleValues) {
+				if (possibleValue.toString().equalsIgnoreCase(value)) {
+					return possibleValue;
+				}
+			}
+			throw new IllegalArgumentException(invalid);
+		}
+		return value;
+	}
+
+	/**
+	 * Loads a graph package or, if the file name ends with
+	 * <code>.graph.xml</code>, a graph file
+	 * @param file The file
+	 * @return The graph or null, if the graph file can't be loaded
+	 * @throws JAXBException If the graph package can't be loaded
+	 */
+	public static Graph loadGraph(String file) throws JAXBException {
+		if (!file.endsWith(".graph.xml")) {
+			File packageFile = new File(file).getAbsoluteFile();
+			GraphPackage graphPackage = GraphPackage.load(packageFile.getPath());
+			file = new File(packageFile.getParentFile(), graphPackage.getGraphFile()).getPath();
+		}
+		return Graph.load(file);
+	}
+
+	/**
+	 * The entry point of the batch router
+	 * @param args The command line arguments
+	 */
+	public static void main(String[] args) {
+		String inputFile = null;
+		String outputFile = null;
+		String format = BatchResultWriter.FORMAT_CSV;
+		String algorithm = DEFAULT_ALGORITHM;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String graphFile = null;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("-input".equals(arg)) {
+					inputFile = args[++i];
+				} else if ("-output".equals(arg)) {
+					outputFile = args[++i];
+				} else if ("-format".equals(arg)) {
+					format = args[++i].toLowerCase();
+				} else if ("-algorithm".equals(arg)) {
+					algorithm = args[++i];
+				} else if ("-threads".equals(arg)) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (arg.startsWith("-") || graphFile != null) {
+					throw new IllegalArgumentException("Unknown argument: " + arg);
+				} else {
+					graphFile = arg;
+				}
+			}
+			if (graphFile == null) {
+				throw new IllegalArgumentException("No graph file specified");
+			}
+			if (!BatchResultWriter.FORMAT_CSV.equals(format)
+					&& !BatchResultWriter.FORMAT_JSON.equals(format)) {
+				throw new IllegalArgumentException("Unknown format: " + format);
+			}
+			if (findAlgorithm(algorithm) == null) {
+				throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.err.println("Missing option value");
+			System.err.println(USAGE);
+			System.exit(2);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			Graph graph = loadGraph(graphFile);
+			if (graph == null) {
+				System.err.println("Can't load graph: " + graphFile);
+				System.exit(1);
+			}
+
+			BatchRouter router = new BatchRouter(graph);
+			router.setDefaultAlgorithm(algorithm);
+			router.setThreadCount(threads);
+
+			BufferedReader input = new BufferedReader(new InputStreamReader(
+					inputFile == null ? System.in : new FileInputStream(inputFile), "UTF-8"));
+			Writer output = new BufferedWriter(new OutputStreamWriter(
+					outputFile == null ? System.out : new FileOutputStream(outputFile), "UTF-8"));
+			int failed;
+			try {
+				failed = router.run(input, new BatchResultWriter(output, format));
+			} finally {
+				input.close();
+				output.close();
+			}
+			System.exit(failed == 0 ? 0 : 1);
+		} catch (JAXBException e) {
+			System.err.println("Can't load graph package: " + graphFile);
+			e.printStackTrace();
+			System.exit(1);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
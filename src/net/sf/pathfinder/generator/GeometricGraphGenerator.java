@@ -0,0 +1,100 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generates a random geometric graph: the nodes are spread uniformly over a
+ * square, every two nodes closer than a radius are connected. The radius is
+ * chosen so that the expected degree is the average degree. The coordinates
+ * are kept in primitive arrays and bucketed into cells of the size of the
+ * radius, so only the neighbouring cells have to be searched.
+ */
+public class GeometricGraphGenerator extends GraphGenerator {
+
+	@Override
+	public void generate(GraphSink sink) throws IOException {
+		int count = getNodeCount();
+		int size = (int) Math.ceil(Math.sqrt(count)) * SPACING;
+		Random random = new Random(getSeed());
+		int[] xs = new int[count];
+		int[] ys = new int[count];
+		for (int i = 0; i < count; i++) {
+			xs[i] = random.nextInt(size + 1);
+			ys[i] = random.nextInt(size + 1);
+		}
+
+		double radius = Math.sqrt(getAverageDegree() * size * (double) size / (Math.PI * count));
+		// cells are at least as large as the radius, and there are not more cells than nodes
+		int cellsPerSide = Math.max(1, (int) Math.min(size / Math.max(radius, 1.0), Math.sqrt(count)));
+		double cellSize = (size + 1) / (double) cellsPerSide;
+
+		// counting sort of the nodes by cell, the nodes of a cell are
+		// cellNodes[cellStarts[cell]] to cellNodes[cellStarts[cell + 1] - 1]
+		int cellCount = cellsPerSide * cellsPerSide;
+		int[] cellStarts = new int[cellCount + 1];
+		int[] cells = new int[count];
+		for (int i = 0; i < count; i++) {
+			cells[i] = cell(xs[i], cellSize, cellsPerSide) * cellsPerSide
+					+ cell(ys[i], cellSize, cellsPerSide);
+			cellStarts[cells[i]]++;
+		}
+		for (int i = 1; i <= cellCount; i++) {
+			cellStarts[i] += cellStarts[i - 1];
+		}
+		int[] cellNodes = new int[count];
+		for (int i = count - 1; i >= 0; i--) {
+			cellNodes[--cellStarts[cells[i]]] = i;
+		}
+		cells = null;
+
+		startGraph(sink, size, size);
+		for (int i = 0; i < count; i++) {
+			writeNode(sink, i + 1, xs[i], ys[i]);
+		}
+
+		double radiusSquare = radius * radius;
+		for (int i = 0; i < count; i++) {
+			int cellX = cell(xs[i], cellSize, cellsPerSide);
+			int cellY = cell(ys[i], cellSize, cellsPerSide);
+			for (int nx = Math.max(0, cellX - 1); nx <= Math.min(cellsPerSide - 1, cellX + 1); nx++) {
+				for (int ny = Math.max(0, cellY - 1); ny <= Math.min(cellsPerSide - 1, cellY + 1); ny++) {
+					int cell = nx * cellsPerSide + ny;
+					for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+						int j = cellNodes[k];
+						if (j <= i) {
+							continue;
+						}
+						double dx = xs[j] - xs[i];
+						double dy = ys[j] - ys[i];
+						if (dx * dx + dy * dy <= radiusSquare) {
+							writeEdge(sink, i + 1, xs[i], ys[i], j + 1, xs[j], ys[j]);
+						}
+					}
+				}
+			}
+		}
+		sink.endGraph();
+	}
+
+	private static int cell(int coordinate, double cellSize, int cellsPerSide) {
+		return Math.min(cellsPerSide - 1, (int) (coordinate / cellSize));
+	}
+}
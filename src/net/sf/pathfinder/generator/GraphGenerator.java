@@ -0,0 +1,375 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.bind.JAXBException;
+
+import net.sf.pathfinder.model.GraphPackage;
+
+/**
+ * Base class of the synthetic graph generators. Generators pass the graph to
+ * a {@link GraphSink} element by element and keep at most a few primitive
+ * values per node, so graphs with tens of millions of edges can be written
+ * to file without holding them in the heap.
+ * <p>
+ * Every undirected connection is passed as two directed edges, with the same
+ * way points in opposite order. Random decisions about an edge are derived
+ * from the seed and the ids of its nodes, so the same seed always generates
+ * the same graph.
+ * </p>
+ */
+public abstract class GraphGenerator {
+
+	/**
+	 * Grid with obstacles
+	 */
+	public static final String TYPE_GRID = "grid";
+	/**
+	 * Random geometric graph
+	 */
+	public static final String TYPE_GEOMETRIC = "geometric";
+	/**
+	 * Delaunay-like planar road network
+	 */
+	public static final String TYPE_PLANAR = "planar";
+	/**
+	 * Scale-free graph
+	 */
+	public static final String TYPE_SCALE_FREE = "scalefree";
+
+	/**
+	 * Distance between neighbouring nodes
+	 */
+	protected static final int SPACING = 20;
+
+	private static final String USAGE = "Usage: GraphGenerator [options] <output>\n"
+			+ "Writes <output>.graph.xml and the graph package <output>.xml\n"
+			+ "Options:\n"
+			+ "  -type grid|geometric|planar|scalefree   Type of the graph, default: planar\n"
+			+ "  -nodes <count>        Number of nodes, default: 10000\n"
+			+ "  -degree <degree>      Average degree, default: 4\n"
+			+ "  -waypoints <density>  Average number of way points per edge, default: 0\n"
+			+ "  -seed <seed>          Seed of the random numbers, default: 4711\n"
+			+ "  -names <ratio>        Part of the nodes with a name, default: 0.01\n"
+			+ "  -obstacles <ratio>    Part of a grid covered by obstacles, default: 0.2";
+
+	private static final long NAME_SALT = 0x4e414d45L;
+	private static final long WAY_POINT_SALT = 0x57415950L;
+	private static final double WAY_POINT_OFFSET = 0.15;
+
+	private int nodeCount = 10000;
+	private double averageDegree = 4.0;
+	private double wayPointDensity = 0.0;
+	private double namedNodeRatio = 0.01;
+	private long seed = 4711;
+
+	private int width;
+	private int height;
+	private final int[] wayPoints = new int[64];
+	private final int[] reversedWayPoints = new int[64];
+
+	/**
+	 * Creates a generator
+	 * @param type The type of the graph, one of the <code>TYPE_</code>
+	 *            constants
+	 * @return The generator
+	 * @throws IllegalArgumentException If the type is unknown
+	 */
+	public static GraphGenerator newInstance(String type) {
+		if (TYPE_GRID.equals(type)) {
+			return new GridGraphGenerator();
+		}
+		if (TYPE_GEOMETRIC.equals(type)) {
+			return new GeometricGraphGenerator();
+		}
+		if (TYPE_PLANAR.equals(type)) {
+			return new PlanarGraphGenerator();
+		}
+		if (TYPE_SCALE_FREE.equals(type)) {
+			return new ScaleFreeGraphGenerator();
+		}
+		throw new IllegalArgumentException("Unknown graph type: " + type);
+	}
+
+	/**
+	 * Generates the graph. Implementations call {@link #startGraph}, then
+	 * {@link #writeNode} for every node and {@link #writeEdge} for every
+	 * connection, and finally {@link GraphSink#endGraph()}.
+	 * @param sink The sink to pass the graph to
+	 * @throws IOException If the sink can't write the graph
+	 */
+	public abstract void generate(GraphSink sink) throws IOException;
+
+	/**
+	 * Generates the graph into a graph file and writes a graph package for it
+	 * @param graphFile The graph file, should end with <code>.graph.xml</code>
+	 * @param packageFile The graph package file
+	 * @return The sink, which knows the number of nodes and edges written
+	 * @throws IOException If the graph can't be written
+	 * @throws JAXBException If the package can't be written
+	 */
+	public XmlGraphSink generate(File graphFile, File packageFile) throws IOException, JAXBException {
+		XmlGraphSink sink = new XmlGraphSink(graphFile);
+		generate(sink);
+		new GraphPackage(null, graphFile.getName()).save(packageFile.getPath());
+		return sink;
+	}
+
+	/**
+	 * Generates a graph file and its package from the command line
+	 * @param args The command line arguments
+	 */
+	public static void main(String[] args) {
+		GraphGenerator generator = null;
+		String output = null;
+		try {
+			String type = TYPE_PLANAR;
+			for (int i = 0; i < args.length; i++) {
+				if ("-type".equals(args[i])) {
+					type = args[++i];
+				}
+			}
+			generator = newInstance(type);
+
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("-type".equals(arg)) {
+					i++;
+				} else if ("-nodes".equals(arg)) {
+					generator.setNodeCount(Integer.parseInt(args[++i]));
+				} else if ("-degree".equals(arg)) {
+					generator.setAverageDegree(Double.parseDouble(args[++i]));
+				} else if ("-waypoints".equals(arg)) {
+					generator.setWayPointDensity(Double.parseDouble(args[++i]));
+				} else if ("-seed".equals(arg)) {
+					generator.setSeed(Long.parseLong(args[++i]));
+				} else if ("-names".equals(arg)) {
+					generator.setNamedNodeRatio(Double.parseDouble(args[++i]));
+				} else if ("-obstacles".equals(arg) && generator instanceof GridGraphGenerator) {
+					((GridGraphGenerator) generator).setObstacleRatio(Double.parseDouble(args[++i]));
+				} else if (arg.startsWith("-") || output != null) {
+					throw new IllegalArgumentException("Unknown argument: " + arg);
+				} else {
+					output = arg;
+				}
+			}
+			if (output == null) {
+				throw new IllegalArgumentException("No output file specified");
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.err.println("Missing option value");
+			System.err.println(USAGE);
+			System.exit(2);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		String base = output;
+		if (base.endsWith(".graph.xml")) {
+			base = base.substring(0, base.length() - ".graph.xml".length());
+		} else if (base.endsWith(".xml")) {
+			base = base.substring(0, base.length() - ".xml".length());
+		}
+		try {
+			long start = System.currentTimeMillis();
+			XmlGraphSink sink = generator.generate(new File(base + ".graph.xml"), new File(base + ".xml"));
+			System.out.println(String.format("Wrote %s.graph.xml: %d nodes, %d edges in %d ms", base,
+					sink.getNodeCount(), sink.getEdgeCount(), System.currentTimeMillis() - start));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		} catch (JAXBException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Starts the graph
+	 */
+	protected void startGraph(GraphSink sink, int width, int height) throws IOException {
+		this.width = width;
+		this.height = height;
+		sink.startGraph(width, height);
+	}
+
+	/**
+	 * Writes a node; a part of the nodes, as set by
+	 * {@link #setNamedNodeRatio(double)}, is named "N" followed by the id
+	 * @param sink The sink
+	 * @param id The node id, starting at 1
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 */
+	protected void writeNode(GraphSink sink, int id, int x, int y) throws IOException {
+		String name = random(id, 0, NAME_SALT) < namedNodeRatio ? "N" + id : null;
+		sink.node(id, name, x, y);
+	}
+
+	/**
+	 * Writes the edges in both directions between two nodes, with way points
+	 * as set by {@link #setWayPointDensity(double)}
+	 * @param sink The sink
+	 * @param a The id of the first node
+	 * @param ax The x coordinate of the first node
+	 * @param ay The y coordinate of the first node
+	 * @param b The id of the second node
+	 * @param bx The x coordinate of the second node
+	 * @param by The y coordinate of the second node
+	 */
+	protected void writeEdge(GraphSink sink, int a, int ax, int ay, int b, int bx, int by)
+			throws IOException {
+		int count = 0;
+		if (wayPointDensity > 0) {
+			count = (int) wayPointDensity;
+			if (random(a, b, WAY_POINT_SALT) < wayPointDensity - count) {
+				count++;
+			}
+			count = Math.min(count, wayPoints.length / 2);
+		}
+
+		double dx = bx - ax;
+		double dy = by - ay;
+		for (int i = 0; i < count; i++) {
+			double t = (i + 1) / (double) (count + 1);
+			double offset = (random(a, b, WAY_POINT_SALT + i + 1) - 0.5) * 2 * WAY_POINT_OFFSET;
+			// offset perpendicular to the edge, relative to its length
+			int x = (int) Math.round(ax + t * dx - offset * dy);
+			int y = (int) Math.round(ay + t * dy + offset * dx);
+			wayPoints[2 * i] = Math.max(0, Math.min(width, x));
+			wayPoints[2 * i + 1] = Math.max(0, Math.min(height, y));
+		}
+		for (int i = 0; i < count; i++) {
+			reversedWayPoints[2 * i] = wayPoints[2 * (count - 1 - i)];
+			reversedWayPoints[2 * i + 1] = wayPoints[2 * (count - 1 - i) + 1];
+		}
+
+		sink.edge(a, b, wayPoints, count);
+		sink.edge(b, a, reversedWayPoints, count);
+	}
+
+	/**
+	 * Gets a pseudo random number in [0, 1) for two values, e.g. the node ids
+	 * of an edge. The result doesn't depend on the order of the values.
+	 * @param a The first value
+	 * @param b The second value
+	 * @param salt Distinguishes different decisions about the same values
+	 * @return The random number
+	 */
+	protected double random(long a, long b, long salt) {
+		long low = Math.min(a, b);
+		long high = Math.max(a, b);
+		long hash = mix(seed ^ mix(salt + mix(low * 0x9e3779b97f4a7c15L + high)));
+		return (hash >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * The SplitMix64 finalizer
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gets the number of nodes to generate
+	 * @return The node count
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Sets the number of nodes to generate; generators may round it
+	 * @param nodeCount The node count
+	 */
+	public void setNodeCount(int nodeCount) {
+		this.nodeCount = Math.max(2, nodeCount);
+	}
+
+	/**
+	 * Gets the average number of edges per node
+	 * @return The average degree
+	 */
+	public double getAverageDegree() {
+		return averageDegree;
+	}
+
+	/**
+	 * Sets the average number of (undirected) connections per node. It is a
+	 * target; the degree of the generated graph depends on the type.
+	 * @param averageDegree The average degree
+	 */
+	public void setAverageDegree(double averageDegree) {
+		this.averageDegree = Math.max(0.0, averageDegree);
+	}
+
+	/**
+	 * Gets the average number of way points per edge
+	 * @return The way point density
+	 */
+	public double getWayPointDensity() {
+		return wayPointDensity;
+	}
+
+	/**
+	 * Sets the average number of way points per edge
+	 * @param wayPointDensity The way point density, 0 for straight edges
+	 */
+	public void setWayPointDensity(double wayPointDensity) {
+		this.wayPointDensity = Math.max(0.0, wayPointDensity);
+	}
+
+	/**
+	 * Gets the part of the nodes that get a name
+	 * @return The ratio, between 0 and 1
+	 */
+	public double getNamedNodeRatio() {
+		return namedNodeRatio;
+	}
+
+	/**
+	 * Sets the part of the nodes that get a name
+	 * @param namedNodeRatio The ratio, between 0 and 1
+	 */
+	public void setNamedNodeRatio(double namedNodeRatio) {
+		this.namedNodeRatio = namedNodeRatio;
+	}
+
+	/**
+	 * Gets the seed of the random numbers
+	 * @return The seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed of the random numbers
+	 * @param seed The seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+}
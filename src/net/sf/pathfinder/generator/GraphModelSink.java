@@ -0,0 +1,74 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.pathfinder.model.Coordinate;
+import net.sf.pathfinder.model.Edge;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+
+/**
+ * Builds a {@link Graph} in memory, for graphs small enough to be used
+ * without a file, e.g. in benchmarks.
+ */
+public class GraphModelSink implements GraphSink {
+
+	private final Graph graph = new Graph();
+	private final List<Node> nodes = new ArrayList<Node>();
+
+	@Override
+	public void startGraph(int width, int height) {
+		graph.setWidth(width);
+		graph.setHeight(height);
+	}
+
+	@Override
+	public void node(int id, String name, int x, int y) {
+		while (nodes.size() < id) {
+			nodes.add(null);
+		}
+		Node node = new Node(new Coordinate(x, y), name);
+		nodes.set(id - 1, node);
+		graph.getNodes().add(node);
+	}
+
+	@Override
+	public void edge(int source, int destination, int[] wayPoints, int wayPointCount) {
+		Node sourceNode = nodes.get(source - 1);
+		Edge edge = new Edge(sourceNode, nodes.get(destination - 1));
+		for (int i = 0; i < wayPointCount; i++) {
+			edge.getWayPoints().add(new Coordinate(wayPoints[2 * i], wayPoints[2 * i + 1]));
+		}
+		sourceNode.getEdges().add(edge);
+	}
+
+	@Override
+	public void endGraph() {
+	}
+
+	/**
+	 * Gets the graph
+	 * @return The graph
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+}
@@ -0,0 +1,63 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.IOException;
+
+/**
+ * Receives a graph element by element, as produced by a
+ * {@link GraphGenerator}. All nodes are passed before the first edge; nodes
+ * are identified by ids starting at 1, like in the graph files.
+ */
+public interface GraphSink {
+
+	/**
+	 * Starts the graph
+	 * @param width The width of the graph
+	 * @param height The height of the graph
+	 * @throws IOException If the graph can't be written
+	 */
+	void startGraph(int width, int height) throws IOException;
+
+	/**
+	 * Adds a node
+	 * @param id The node id
+	 * @param name The name of the node, may be null
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @throws IOException If the node can't be written
+	 */
+	void node(int id, String name, int x, int y) throws IOException;
+
+	/**
+	 * Adds a directed edge
+	 * @param source The source node id
+	 * @param destination The destination node id
+	 * @param wayPoints The way point coordinates, x and y alternating; the
+	 *            array is reused by the caller
+	 * @param wayPointCount The number of way points
+	 * @throws IOException If the edge can't be written
+	 */
+	void edge(int source, int destination, int[] wayPoints, int wayPointCount) throws IOException;
+
+	/**
+	 * Ends the graph
+	 * @throws IOException If the graph can't be written
+	 */
+	void endGraph() throws IOException;
+}
@@ -0,0 +1,138 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Generates a square grid with rectangular obstacles. Free cells are nodes;
+ * they are connected to their horizontal and vertical neighbours and, for an
+ * average degree above 4, to their diagonal neighbours as well. Connections
+ * are dropped at random until the average degree is met.
+ */
+public class GridGraphGenerator extends GraphGenerator {
+
+	private double obstacleRatio = 0.2;
+
+	@Override
+	public void generate(GraphSink sink) throws IOException {
+		int side = (int) Math.ceil(Math.sqrt(getNodeCount() / (1.0 - obstacleRatio)));
+		BitSet obstacles = placeObstacles(side);
+
+		// node ids of the free cells, row by row
+		int[] ids = new int[side * side];
+		int id = 0;
+		for (int cell = 0; cell < ids.length; cell++) {
+			ids[cell] = obstacles.get(cell) ? 0 : ++id;
+		}
+
+		startGraph(sink, (side + 1) * SPACING, (side + 1) * SPACING);
+		for (int cell = 0; cell < ids.length; cell++) {
+			if (ids[cell] > 0) {
+				writeNode(sink, ids[cell], x(cell, side), y(cell, side));
+			}
+		}
+
+		boolean diagonals = getAverageDegree() > 4;
+		double keep = Math.min(1.0, getAverageDegree() / (diagonals ? 8 : 4));
+		for (int cell = 0; cell < ids.length; cell++) {
+			if (ids[cell] == 0) {
+				continue;
+			}
+			int column = cell % side;
+			int row = cell / side;
+			if (column + 1 < side) {
+				connect(sink, ids, side, cell, cell + 1, keep);
+			}
+			if (row + 1 < side) {
+				connect(sink, ids, side, cell, cell + side, keep);
+				if (diagonals && column + 1 < side) {
+					connect(sink, ids, side, cell, cell + side + 1, keep);
+				}
+				if (diagonals && column > 0) {
+					connect(sink, ids, side, cell, cell + side - 1, keep);
+				}
+			}
+		}
+		sink.endGraph();
+	}
+
+	private void connect(GraphSink sink, int[] ids, int side, int cell, int neighbour, double keep)
+			throws IOException {
+		int a = ids[cell];
+		int b = ids[neighbour];
+		if (b == 0 || random(a, b, 0) >= keep) {
+			return;
+		}
+		writeEdge(sink, a, x(cell, side), y(cell, side), b, x(neighbour, side), y(neighbour, side));
+	}
+
+	private static int x(int cell, int side) {
+		return (cell % side + 1) * SPACING;
+	}
+
+	private static int y(int cell, int side) {
+		return (cell / side + 1) * SPACING;
+	}
+
+	/**
+	 * Places random rectangles until the obstacle ratio is reached
+	 */
+	private BitSet placeObstacles(int side) {
+		BitSet obstacles = new BitSet(side * side);
+		long target = (long) (obstacleRatio * side * side);
+		int maxSize = Math.max(1, side / 10);
+		Random random = new Random(getSeed());
+		long blocked = 0;
+		for (long attempt = 0; blocked < target && attempt < 4 * target; attempt++) {
+			int width = 1 + random.nextInt(maxSize);
+			int height = 1 + random.nextInt(maxSize);
+			int left = random.nextInt(side - width + 1);
+			int top = random.nextInt(side - height + 1);
+			for (int row = top; row < top + height && blocked < target; row++) {
+				for (int column = left; column < left + width && blocked < target; column++) {
+					int cell = row * side + column;
+					if (!obstacles.get(cell)) {
+						obstacles.set(cell);
+						blocked++;
+					}
+				}
+			}
+		}
+		return obstacles;
+	}
+
+	/**
+	 * Gets the part of the grid covered by obstacles
+	 * @return The obstacle ratio
+	 */
+	public double getObstacleRatio() {
+		return obstacleRatio;
+	}
+
+	/**
+	 * Sets the part of the grid covered by obstacles. The grid is enlarged, so
+	 * the number of free cells is about the node count.
+	 * @param obstacleRatio The ratio, between 0 and 0.9
+	 */
+	public void setObstacleRatio(double obstacleRatio) {
+		this.obstacleRatio = Math.max(0.0, Math.min(0.9, obstacleRatio));
+	}
+}
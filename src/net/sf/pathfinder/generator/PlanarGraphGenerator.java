@@ -0,0 +1,105 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.IOException;
+
+/**
+ * Generates a planar, road network like graph. The nodes are the points of a
+ * grid, each moved by a random offset. Every grid cell is split into two
+ * triangles by its shorter diagonal, like a Delaunay triangulation would do,
+ * which gives an average degree of about 6. To get the requested average
+ * degree, vertical and diagonal connections are dropped at random; the rows
+ * and the first column are always kept, so the graph stays connected.
+ * <p>
+ * The coordinates are computed from the seed whenever they are needed,
+ * nothing is stored per node.
+ * </p>
+ */
+public class PlanarGraphGenerator extends GraphGenerator {
+
+	private static final long JITTER_SALT = 0x4a495454L;
+	private static final double JITTER = 0.6;
+
+	private int columns;
+
+	@Override
+	public void generate(GraphSink sink) throws IOException {
+		columns = (int) Math.ceil(Math.sqrt(getNodeCount()));
+		int rows = (int) Math.ceil(getNodeCount() / (double) columns);
+		int count = columns * rows;
+
+		startGraph(sink, (columns + 1) * SPACING, (rows + 1) * SPACING);
+		for (int id = 1; id <= count; id++) {
+			writeNode(sink, id, x(id), y(id));
+		}
+
+		// rows and the first column are kept: about 2 per node; other vertical
+		// and diagonal connections add about 2 each
+		double keep = Math.max(0.0, Math.min(1.0, (getAverageDegree() - 2) / 4));
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				int id = row * columns + column + 1;
+				if (column + 1 < columns) {
+					connect(sink, id, id + 1, 1.0);
+				}
+				if (row + 1 < rows) {
+					connect(sink, id, id + columns, column == 0 ? 1.0 : keep);
+					if (column + 1 < columns) {
+						int right = id + 1;
+						int below = id + columns;
+						int diagonal = below + 1;
+						if (distanceSquare(id, diagonal) <= distanceSquare(right, below)) {
+							connect(sink, id, diagonal, keep);
+						} else {
+							connect(sink, right, below, keep);
+						}
+					}
+				}
+			}
+		}
+		sink.endGraph();
+	}
+
+	private void connect(GraphSink sink, int a, int b, double keep) throws IOException {
+		if (keep < 1.0 && random(a, b, 0) >= keep) {
+			return;
+		}
+		writeEdge(sink, a, x(a), y(a), b, x(b), y(b));
+	}
+
+	private long distanceSquare(int a, int b) {
+		long dx = x(a) - x(b);
+		long dy = y(a) - y(b);
+		return dx * dx + dy * dy;
+	}
+
+	private int x(int id) {
+		int column = (id - 1) % columns;
+		return (column + 1) * SPACING + jitter(id, 0);
+	}
+
+	private int y(int id) {
+		int row = (id - 1) / columns;
+		return (row + 1) * SPACING + jitter(id, 1);
+	}
+
+	private int jitter(int id, int axis) {
+		return (int) Math.round((random(id, axis, JITTER_SALT) - 0.5) * JITTER * SPACING);
+	}
+}
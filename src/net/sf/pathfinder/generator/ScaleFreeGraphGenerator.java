@@ -0,0 +1,98 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.IOException;
+
+/**
+ * Generates a scale-free graph: a few hubs with many connections, most nodes
+ * with few. Nodes are added one after another and connected to about half the
+ * average degree of earlier nodes; an earlier node <code>j</code> is chosen
+ * with a probability proportional to <code>j^(-2/3)</code>, which gives a
+ * power law degree distribution with exponent 2.5 like preferential
+ * attachment does. Unlike preferential attachment, the choice needs no
+ * degree table, so nothing is stored per node. The nodes are spread
+ * uniformly over a square.
+ */
+public class ScaleFreeGraphGenerator extends GraphGenerator {
+
+	private static final long POSITION_SALT = 0x504f5349L;
+	private static final long TARGET_SALT = 0x54415247L;
+	private static final long COUNT_SALT = 0x434f554eL;
+
+	/**
+	 * Exponent of the sampling <code>j = i * u^3</code>, gives a density of
+	 * <code>j^(-2/3)</code>
+	 */
+	private static final int SAMPLING_EXPONENT = 3;
+
+	private int size;
+
+	@Override
+	public void generate(GraphSink sink) throws IOException {
+		int count = getNodeCount();
+		size = (int) Math.ceil(Math.sqrt(count)) * SPACING;
+
+		startGraph(sink, size, size);
+		for (int id = 1; id <= count; id++) {
+			writeNode(sink, id, x(id), y(id));
+		}
+
+		double connections = getAverageDegree() / 2;
+		int maxConnections = (int) Math.ceil(connections);
+		int[] targets = new int[maxConnections];
+		for (int i = 1; i < count; i++) {
+			int node = i + 1;
+			int wanted = (int) connections;
+			if (random(node, 0, COUNT_SALT) < connections - wanted) {
+				wanted++;
+			}
+			wanted = Math.min(wanted, i);
+
+			int found = 0;
+			for (int attempt = 0; found < wanted && attempt < 4 * wanted; attempt++) {
+				double u = random(node, attempt, TARGET_SALT);
+				int target = 1 + Math.min(i - 1, (int) (i * Math.pow(u, SAMPLING_EXPONENT)));
+				if (!contains(targets, found, target)) {
+					targets[found++] = target;
+				}
+			}
+			for (int k = 0; k < found; k++) {
+				writeEdge(sink, node, x(node), y(node), targets[k], x(targets[k]), y(targets[k]));
+			}
+		}
+		sink.endGraph();
+	}
+
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int x(int id) {
+		return (int) (random(id, 0, POSITION_SALT) * size);
+	}
+
+	private int y(int id) {
+		return (int) (random(id, 1, POSITION_SALT) * size);
+	}
+}
@@ -0,0 +1,145 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a graph file in the format of {@link net.sf.pathfinder.util.GraphIO}
+ * while the graph is generated; nothing but the current element is kept in
+ * memory.
+ */
+public class XmlGraphSink implements GraphSink {
+
+	private final OutputStream output;
+	private final XMLStreamWriter writer;
+	private long nodeCount = 0;
+	private long edgeCount = 0;
+
+	/**
+	 * Creates a new sink
+	 * @param file The graph file
+	 * @throws IOException If the file can't be created
+	 */
+	public XmlGraphSink(File file) throws IOException {
+		output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+		} catch (XMLStreamException e) {
+			output.close();
+			throw new IOException("Can't create XML writer: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void startGraph(int width, int height) throws IOException {
+		try {
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement("graph");
+			writer.writeAttribute("height", String.valueOf(height));
+			writer.writeAttribute("width", String.valueOf(width));
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	@Override
+	public void node(int id, String name, int x, int y) throws IOException {
+		try {
+			writer.writeCharacters("\n    ");
+			writer.writeEmptyElement("node");
+			writer.writeAttribute("y", String.valueOf(y));
+			writer.writeAttribute("x", String.valueOf(x));
+			if (name != null) {
+				writer.writeAttribute("name", name);
+			}
+			writer.writeAttribute("id", String.valueOf(id));
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage());
+		}
+		nodeCount++;
+	}
+
+	@Override
+	public void edge(int source, int destination, int[] wayPoints, int wayPointCount)
+			throws IOException {
+		try {
+			writer.writeCharacters("\n    ");
+			if (wayPointCount == 0) {
+				writer.writeEmptyElement("edge");
+			} else {
+				writer.writeStartElement("edge");
+			}
+			writer.writeAttribute("destination", String.valueOf(destination));
+			writer.writeAttribute("source", String.valueOf(source));
+			if (wayPointCount > 0) {
+				for (int i = 0; i < wayPointCount; i++) {
+					writer.writeCharacters("\n        ");
+					writer.writeEmptyElement("waypoint");
+					writer.writeAttribute("y", String.valueOf(wayPoints[2 * i + 1]));
+					writer.writeAttribute("x", String.valueOf(wayPoints[2 * i]));
+				}
+				writer.writeCharacters("\n    ");
+				writer.writeEndElement();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage());
+		}
+		edgeCount++;
+	}
+
+	@Override
+	public void endGraph() throws IOException {
+		try {
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			writer.writeEndDocument();
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage());
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Gets the number of nodes written
+	 * @return The number of nodes
+	 */
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the number of edges written
+	 * @return The number of edges
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+}
@@ -0,0 +1,302 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class of the append-only lists recording the paths of the steps of a
+ * calculation. Instead of keeping one complete {@link Path} per step, only
+ * what changed is stored: how many path steps are kept from the previous
+ * step, the path steps appended to them and how many of the (shared)
+ * backtracking nodes belong to the step. Every {@link #CHECKPOINT_INTERVAL}-th
+ * step stores its complete path, so any step is rebuilt from at most that many
+ * deltas. The paths are materialised on {@link #get(int)}, the last one is
+ * cached.
+ * <p>
+ * Subclasses only provide the storage of the encoded steps.
+ */
+public abstract class AbstractStepJournal extends AbstractList<Path> {
+
+	/**
+	 * Number of steps between two steps storing their complete path
+	 */
+	public static final int CHECKPOINT_INTERVAL = 32;
+
+	// path of the last added step, start first
+	private final List<Path.PathStep> lastSteps = new ArrayList<Path.PathStep>();
+	private long backTrackingSegment = 0;
+	private Node lastBackTrackingNode;
+
+	// path of the last materialised step, start first
+	private final List<Node> cachedNodes = new ArrayList<Node>();
+	private final List<Edge> cachedEdges = new ArrayList<Edge>();
+	private int cachedIndex = -1;
+	private Path cachedPath;
+
+	/**
+	 * Records the path of the next step. Only the differences to the previous
+	 * step are stored, the path itself is not referenced by the journal.
+	 * @param path The path of the step, null is recorded as an empty path
+	 * @return Always true
+	 */
+	@Override
+	public synchronized boolean add(Path path) {
+		if (path == null) {
+			path = new Path();
+		}
+		addStep(path, path.getBackTrackingNodes(), false);
+		return true;
+	}
+
+	/**
+	 * Records the path of the next step, whose backtracking nodes are the
+	 * ones of the previous step plus the specified nodes. Algorithms only add
+	 * backtracking nodes while they run, so the nodes are appended without
+	 * comparing them to the ones of the previous step.
+	 * @param path The path of the step, null is recorded as an empty path.
+	 * Its backtracking nodes are ignored.
+	 * @param addedBackTrackingNodes The backtracking nodes added since the
+	 * previous step
+	 */
+	public synchronized void add(Path path, List<Node> addedBackTrackingNodes) {
+		if (path == null) {
+			path = new Path();
+		}
+		addStep(path, addedBackTrackingNodes, true);
+	}
+
+	private void addStep(Path path, List<Node> backTrackingNodes, boolean added) {
+		int step = size();
+		List<Path.PathStep> steps = path.getPathSteps();
+		int count = steps.size();
+		// paths built from the destination back start with the step without edge
+		boolean reverse = count > 1 && steps.get(0).next == null;
+
+		int keep = 0;
+		if (step % CHECKPOINT_INTERVAL != 0) {
+			int max = Math.min(count, lastSteps.size());
+			while (keep < max && isSameStep(lastSteps.get(keep), 
+					steps.get(reverse ? count - 1 - keep : keep))) {
+				keep++;
+			}
+		}
+		lastSteps.subList(keep, lastSteps.size()).clear();
+
+		long pathStart = getPathStepCount();
+		for (int i = keep; i < count; i++) {
+			Path.PathStep pathStep = steps.get(reverse ? count - 1 - i : i);
+			appendPathStep(pathStep.node, pathStep.next);
+			lastSteps.add(pathStep);
+		}
+
+		long backTrackingStart;
+		if (added) {
+			for (Node node : backTrackingNodes) {
+				appendBackTrackingNode(node);
+			}
+			if (backTrackingNodes.size() > 0) {
+				lastBackTrackingNode = backTrackingNodes.get(backTrackingNodes.size() - 1);
+			}
+			backTrackingStart = backTrackingSegment;
+		} else {
+			backTrackingStart = addBackTrackingNodes(backTrackingNodes);
+		}
+		appendStep(keep, reverse, pathStart, backTrackingStart, 
+				(int) (getBackTrackingNodeCount() - backTrackingStart));
+		modCount++;
+	}
+
+	/**
+	 * Appends the backtracking nodes of a step. As long as the nodes of a step
+	 * start with the nodes of the previous steps, which is the case while
+	 * an algorithm adds backtracking nodes, only the new ones are stored.
+	 * Otherwise a new segment is started.
+	 * @return The index of the first backtracking node of the step
+	 */
+	private long addBackTrackingNodes(List<Node> stepNodes) {
+		long total = getBackTrackingNodeCount();
+		long segmentSize = total - backTrackingSegment;
+		if (stepNodes.size() < segmentSize || (segmentSize > 0 
+				&& stepNodes.get((int) segmentSize - 1) != lastBackTrackingNode)) {
+			backTrackingSegment = total;
+			segmentSize = 0;
+		}
+		for (int i = (int) segmentSize; i < stepNodes.size(); i++) {
+			appendBackTrackingNode(stepNodes.get(i));
+		}
+		if (stepNodes.size() > 0) {
+			lastBackTrackingNode = stepNodes.get(stepNodes.size() - 1);
+		}
+		return backTrackingSegment;
+	}
+
+	private static boolean isSameStep(Path.PathStep a, Path.PathStep b) {
+		return a.node == b.node && a.next == b.next;
+	}
+
+	/**
+	 * Rebuilds the path of the specified step
+	 * @param index The step
+	 * @return The path
+	 */
+	@Override
+	public synchronized Path get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		if (index == cachedIndex) {
+			return cachedPath;
+		}
+		prepareRead();
+
+		int checkpoint = index - index % CHECKPOINT_INTERVAL;
+		int from = checkpoint;
+		if (cachedIndex >= checkpoint && cachedIndex < index) {
+			from = cachedIndex + 1;
+		}
+		for (int step = from; step <= index; step++) {
+			int keep = getKeptSteps(step);
+			cachedNodes.subList(keep, cachedNodes.size()).clear();
+			cachedEdges.subList(keep, cachedEdges.size()).clear();
+			long end = step + 1 < size() ? getPathStart(step + 1) : getPathStepCount();
+			for (long i = getPathStart(step); i < end; i++) {
+				cachedNodes.add(getPathStepNode(i));
+				cachedEdges.add(getPathStepEdge(i));
+			}
+		}
+
+		Path path = new Path();
+		List<Path.PathStep> steps = path.getPathSteps();
+		int count = cachedNodes.size();
+		boolean reverse = isReversed(index);
+		for (int i = 0; i < count; i++) {
+			int j = reverse ? count - 1 - i : i;
+			steps.add(new Path.PathStep(cachedNodes.get(j), cachedEdges.get(j)));
+		}
+		long start = getBackTrackingStart(index);
+		long end = start + getBackTrackingCount(index);
+		for (long i = start; i < end; i++) {
+			path.getBackTrackingNodes().add(getBackTrackingNode(i));
+		}
+
+		cachedIndex = index;
+		cachedPath = path;
+		return path;
+	}
+
+	/**
+	 * Called before steps are read, so buffered steps can be written out
+	 */
+	protected void prepareRead() {
+	}
+
+	/**
+	 * Stores an encoded step
+	 * @param keptSteps Number of path steps kept from the previous step
+	 * @param reversed True if the path has to be reversed after rebuilding
+	 * @param pathStart Index of the first path step appended by the step
+	 * @param backTrackingStart Index of the first backtracking node of the step
+	 * @param backTrackingCount Number of backtracking nodes of the step
+	 */
+	protected abstract void appendStep(int keptSteps, boolean reversed,
+			long pathStart, long backTrackingStart, int backTrackingCount);
+
+	/**
+	 * Gets the number of path steps kept from the previous step
+	 * @param step The step
+	 * @return The number of kept path steps
+	 */
+	protected abstract int getKeptSteps(int step);
+
+	/**
+	 * Indicates whether the path of the step is reversed
+	 * @param step The step
+	 * @return True if the path is reversed, otherwise false
+	 */
+	protected abstract boolean isReversed(int step);
+
+	/**
+	 * Gets the index of the first path step appended by the step
+	 * @param step The step
+	 * @return The index
+	 */
+	protected abstract long getPathStart(int step);
+
+	/**
+	 * Gets the index of the first backtracking node of the step
+	 * @param step The step
+	 * @return The index
+	 */
+	protected abstract long getBackTrackingStart(int step);
+
+	/**
+	 * Gets the number of backtracking nodes of the step
+	 * @param step The step
+	 * @return The number of backtracking nodes
+	 */
+	protected abstract int getBackTrackingCount(int step);
+
+	/**
+	 * Stores a path step
+	 * @param node The node of the path step
+	 * @param edge The edge leaving the node, may be null
+	 */
+	protected abstract void appendPathStep(Node node, Edge edge);
+
+	/**
+	 * Gets the number of stored path steps
+	 * @return The number of path steps
+	 */
+	protected abstract long getPathStepCount();
+
+	/**
+	 * Gets the node of a stored path step
+	 * @param index The index of the path step
+	 * @return The node
+	 */
+	protected abstract Node getPathStepNode(long index);
+
+	/**
+	 * Gets the edge of a stored path step
+	 * @param index The index of the path step
+	 * @return The edge, may be null
+	 */
+	protected abstract Edge getPathStepEdge(long index);
+
+	/**
+	 * Stores a backtracking node
+	 * @param node The node
+	 */
+	protected abstract void appendBackTrackingNode(Node node);
+
+	/**
+	 * Gets the number of stored backtracking nodes
+	 * @return The number of backtracking nodes
+	 */
+	protected abstract long getBackTrackingNodeCount();
+
+	/**
+	 * Gets a stored backtracking node
+	 * @param index The index of the backtracking node
+	 * @return The node
+	 */
+	protected abstract Node getBackTrackingNode(long index);
+}
@@ -0,0 +1,251 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/
+
+package net.sf.pathfinder.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only, int indexed snapshot of a {@link Graph}.
+ * The adjacency is stored in compressed sparse row form: the outgoing edges of
+ * node <code>n</code> are the edge ids from {@link #getFirstEdge(int)} (inclusive)
+ * to {@link #getLastEdge(int)} (exclusive). Edge weights are computed once while
+ * compiling, so searching the snapshot never touches the waypoints again.
+ * The incoming edges of a node are indexed the same way, from
+ * {@link #getFirstReverseEdge(int)} to {@link #getLastReverseEdge(int)}; the
+ * entries of that range are mapped to edge ids by {@link #getReverseEdge(int)}.
+ */
+public final class CompiledGraph {
+
+	private final Node[] nodes;
+	private final Edge[] edges;
+	private final int[] offsets;
+	private final int[] sources;
+	private final int[] targets;
+	private final double[] weights;
+	private final int[] reverseOffsets;
+	private final int[] reverseEdges;
+	private final Map<Node, Integer> nodeIds;
+
+	private CompiledGraph(Node[] nodes, Edge[] edges, int[] offsets, int[] sources,
+			int[] targets, double[] weights, Map<Node, Integer> nodeIds) {
+		this.nodes = nodes;
+		this.edges = edges;
+		this.offsets = offsets;
+		this.sources = sources;
+		this.targets = targets;
+		this.weights = weights;
+		this.nodeIds = nodeIds;
+
+		reverseOffsets = new int[nodes.length + 1];
+		reverseEdges = new int[targets.length];
+		for (int target : targets) {
+			reverseOffsets[target + 1]++;
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			reverseOffsets[i + 1] += reverseOffsets[i];
+		}
+		int[] next = new int[nodes.length];
+		System.arraycopy(reverseOffsets, 0, next, 0, nodes.length);
+		for (int edge = 0; edge < targets.length; edge++) {
+			reverseEdges[next[targets[edge]]++] = edge;
+		}
+	}
+
+	/**
+	 * Compiles the specified graph.
+	 * Edges pointing to nodes that are not part of the graph are skipped.
+	 * @param graph The graph to compile
+	 * @return The compiled graph
+	 */
+	public static CompiledGraph compile(Graph graph) {
+		NodeList nodeList = graph.getNodes();
+		int nodeCount = nodeList.size();
+
+		Node[] nodes = nodeList.toArray(new Node[nodeCount]);
+		Map<Node, Integer> nodeIds = new HashMap<Node, Integer>(nodeCount * 2);
+		for (int i = 0; i < nodeCount; i++) {
+			nodeIds.put(nodes[i], i);
+		}
+
+		int edgeCount = 0;
+		for (Node node : nodes) {
+			edgeCount += node.getEdges().size();
+		}
+
+		Edge[] edges = new Edge[edgeCount];
+		int[] offsets = new int[nodeCount + 1];
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+
+		int current = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			offsets[i] = current;
+			for (Edge edge : nodes[i].getEdges()) {
+				Integer target = nodeIds.get(edge.getDestination());
+				if (target == null) {
+					continue;
+				}
+				edges[current] = edge;
+				sources[current] = i;
+				targets[current] = target;
+				weights[current] = edge.getLength();
+				current++;
+			}
+		}
+		offsets[nodeCount] = current;
+
+		if (current < edgeCount) {
+			Edge[] trimmedEdges = new Edge[current];
+			int[] trimmedSources = new int[current];
+			int[] trimmedTargets = new int[current];
+			double[] trimmedWeights = new double[current];
+			System.arraycopy(edges, 0, trimmedEdges, 0, current);
+			System.arraycopy(sources, 0, trimmedSources, 0, current);
+			System.arraycopy(targets, 0, trimmedTargets, 0, current);
+			System.arraycopy(weights, 0, trimmedWeights, 0, current);
+			edges = trimmedEdges;
+			sources = trimmedSources;
+			targets = trimmedTargets;
+			weights = trimmedWeights;
+		}
+
+		return new CompiledGraph(nodes, edges, offsets, sources, targets, weights, nodeIds);
+	}
+
+	/**
+	 * Gets the number of nodes
+	 * @return The number of nodes
+	 */
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	/**
+	 * Gets the number of edges
+	 * @return The number of edges
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Gets the id of the specified node
+	 * @param node The node
+	 * @return The id or -1, if the node is not part of the snapshot
+	 */
+	public int getId(Node node) {
+		Integer id = nodeIds.get(node);
+		if (id == null) {
+			return -1;
+		}
+		return id;
+	}
+
+	/**
+	 * Gets the node with the specified id
+	 * @param id The node id
+	 * @return The node
+	 */
+	public Node getNode(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * Gets the id of the first outgoing edge of a node
+	 * @param node The node id
+	 * @return The first edge id
+	 */
+	public int getFirstEdge(int node) {
+		return offsets[node];
+	}
+
+	/**
+	 * Gets the id behind the last outgoing edge of a node
+	 * @param node The node id
+	 * @return The exclusive upper bound of the node's edge ids
+	 */
+	public int getLastEdge(int node) {
+		return offsets[node + 1];
+	}
+
+	/**
+	 * Gets the index of the first incoming edge of a node
+	 * @param node The node id
+	 * @return The first index, use {@link #getReverseEdge(int)} to get the edge id
+	 */
+	public int getFirstReverseEdge(int node) {
+		return reverseOffsets[node];
+	}
+
+	/**
+	 * Gets the index behind the last incoming edge of a node
+	 * @param node The node id
+	 * @return The exclusive upper bound of the node's incoming edge indices
+	 */
+	public int getLastReverseEdge(int node) {
+		return reverseOffsets[node + 1];
+	}
+
+	/**
+	 * Gets the edge id of an incoming edge index
+	 * @param index The index, between {@link #getFirstReverseEdge(int)} and
+	 *            {@link #getLastReverseEdge(int)} of a node
+	 * @return The edge id
+	 */
+	public int getReverseEdge(int index) {
+		return reverseEdges[index];
+	}
+
+	/**
+	 * Gets the source node of an edge
+	 * @param edge The edge id
+	 * @return The source node id
+	 */
+	public int getSource(int edge) {
+		return sources[edge];
+	}
+
+	/**
+	 * Gets the target node of an edge
+	 * @param edge The edge id
+	 * @return The target node id
+	 */
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Gets the precomputed weight (length) of an edge
+	 * @param edge The edge id
+	 * @return The weight
+	 */
+	public double getWeight(int edge) {
+		return weights[edge];
+	}
+
+	/**
+	 * Gets the edge object of an edge id
+	 * @param edge The edge id
+	 * @return The edge
+	 */
+	public Edge getEdge(int edge) {
+		return edges[edge];
+	}
+}
@@ -0,0 +1,249 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.pathfinder.util.StringUtils;
+
+/**
+ * Shortest path distances between a list of source nodes and a list of target
+ * nodes. The distances are stored row by row in a single <code>double</code>
+ * array; unreachable pairs are infinite, pairs that were not calculated
+ * (because the calculation was cancelled) are <code>NaN</code>.
+ */
+public class DistanceMatrix {
+
+	/**
+	 * Magic number at the start of the binary format ("PFDM")
+	 */
+	public static final int BINARY_MAGIC = 0x5046444d;
+	/**
+	 * Version of the binary format
+	 */
+	public static final int BINARY_VERSION = 1;
+
+	private final Node[] sources;
+	private final Node[] targets;
+	private final double[] distances;
+	private volatile int completedRows = 0;
+
+	/**
+	 * Creates a new matrix, all distances are <code>NaN</code>
+	 * @param sources The source nodes, one per row
+	 * @param targets The target nodes, one per column
+	 */
+	public DistanceMatrix(List<Node> sources, List<Node> targets) {
+		this.sources = sources.toArray(new Node[sources.size()]);
+		this.targets = targets.toArray(new Node[targets.size()]);
+		this.distances = new double[this.sources.length * this.targets.length];
+		Arrays.fill(distances, Double.NaN);
+	}
+
+	/**
+	 * Gets the number of rows
+	 * @return The number of source nodes
+	 */
+	public int getSourceCount() {
+		return sources.length;
+	}
+
+	/**
+	 * Gets the number of columns
+	 * @return The number of target nodes
+	 */
+	public int getTargetCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Gets the source node of a row
+	 * @param row The row
+	 * @return The source node
+	 */
+	public Node getSource(int row) {
+		return sources[row];
+	}
+
+	/**
+	 * Gets the target node of a column
+	 * @param column The column
+	 * @return The target node
+	 */
+	public Node getTarget(int column) {
+		return targets[column];
+	}
+
+	/**
+	 * Gets the distance between a source and a target
+	 * @param row The row of the source
+	 * @param column The column of the target
+	 * @return The distance, infinity if the target is not reachable and
+	 *         <code>NaN</code> if it was not calculated
+	 */
+	public double getDistance(int row, int column) {
+		return distances[row * targets.length + column];
+	}
+
+	/**
+	 * Sets the distance between a source and a target
+	 * @param row The row of the source
+	 * @param column The column of the target
+	 * @param distance The distance
+	 */
+	public void setDistance(int row, int column, double distance) {
+		distances[row * targets.length + column] = distance;
+	}
+
+	/**
+	 * Gets the number of rows that were calculated
+	 * @return The number of completed rows
+	 */
+	public int getCompletedRows() {
+		return completedRows;
+	}
+
+	/**
+	 * Sets the number of rows that were calculated
+	 * @param completedRows The number of completed rows
+	 */
+	public void setCompletedRows(int completedRows) {
+		this.completedRows = completedRows;
+	}
+
+	/**
+	 * Indicates whether all rows were calculated
+	 * @return True if the matrix is complete, otherwise false
+	 */
+	public boolean isComplete() {
+		return completedRows == sources.length;
+	}
+
+	/**
+	 * Writes the matrix as comma separated values. The first row and column
+	 * contain the node names. Unreachable targets are written as
+	 * <code>Infinity</code>, distances that were not calculated are empty.
+	 * @param file The file
+	 * @throws IOException If the file can't be written
+	 */
+	public void writeCsv(File file) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			writeCsv(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the matrix as comma separated values
+	 * @param writer The writer, it is not closed
+	 * @throws IOException If the matrix can't be written
+	 * @see #writeCsv(File)
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		for (Node target : targets) {
+			writer.write(',');
+			writer.write(quote(getLabel(target)));
+		}
+		writer.write('\n');
+		int index = 0;
+		for (Node source : sources) {
+			writer.write(quote(getLabel(source)));
+			for (int column = 0; column < targets.length; column++) {
+				writer.write(',');
+				double distance = distances[index++];
+				if (!Double.isNaN(distance)) {
+					writer.write(Double.toString(distance));
+				}
+			}
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the matrix in a binary format: the magic number, the version, the
+	 * number of rows and columns and the number of completed rows as ints, the
+	 * source and target labels as modified UTF-8 strings and the distances row
+	 * by row as doubles, all big endian.
+	 * @param file The file
+	 * @throws IOException If the file can't be written
+	 */
+	public void writeBinary(File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		try {
+			writeBinary(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the matrix in the binary format
+	 * @param out The stream, it is not closed
+	 * @throws IOException If the matrix can't be written
+	 * @see #writeBinary(File)
+	 */
+	public void writeBinary(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BINARY_MAGIC);
+		data.writeInt(BINARY_VERSION);
+		data.writeInt(sources.length);
+		data.writeInt(targets.length);
+		data.writeInt(completedRows);
+		for (Node source : sources) {
+			data.writeUTF(getLabel(source));
+		}
+		for (Node target : targets) {
+			data.writeUTF(getLabel(target));
+		}
+		for (double distance : distances) {
+			data.writeDouble(distance);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Gets the label of a node, its name or its coordinate, if it has no name
+	 */
+	private static String getLabel(Node node) {
+		if (!StringUtils.isNullOrEmpty(node.getName())) {
+			return node.getName();
+		}
+		Coordinate coordinate = node.getCoordinate();
+		return String.format("(%d %d)", coordinate.getX(), coordinate.getY());
+	}
+
+	private static String quote(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
@@ -18,6 +18,7 @@
 package net.sf.pathfinder.model;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,7 +31,9 @@ public class Edge implements Serializable {
 
 	private Node source;
 	private Node destination;
-	private List<Coordinate> wayPoints = new ArrayList<Coordinate>();
+	private List<Coordinate> wayPoints = new WayPointList();
+	private transient double length;
+	private transient volatile boolean lengthValid = false;
 	
 	/**
 	 * Creates a new edge
@@ -50,20 +53,33 @@ public class Edge implements Serializable {
 	}
 
 	/**
-	 * Gets the length of the edge
+	 * Gets the length of the edge.
+	 * The length is calculated once and cached until the source, the
+	 * destination or the way points change.
 	 * @return The length
 	 */ 
 	public double getLength() {
-		double length = 0;
-		Coordinate previous = getSource().getCoordinate();		
-		for (Coordinate wayPoint : wayPoints) {
-			length += previous.distance(wayPoint);
-			previous = wayPoint;
+		if (!lengthValid) {
+			double length = 0;
+			Coordinate previous = getSource().getCoordinate();		
+			for (Coordinate wayPoint : wayPoints) {
+				length += previous.distance(wayPoint);
+				previous = wayPoint;
+			}
+			
+			length += previous.distance(getDestination().getCoordinate());
+			this.length = length;
+			lengthValid = true;
 		}
-		
-		length += previous.distance(getDestination().getCoordinate());
 		return length;
 	}
+
+	/**
+	 * Discards the cached length
+	 */
+	private void invalidateLength() {
+		lengthValid = false;
+	}
 	
 	/**
 	 * Gets the source node
@@ -79,6 +95,7 @@ public class Edge implements Serializable {
 	 */
 	public void setSource(Node source) {
 		this.source = source;
+		invalidateLength();
 	}
 	
 	/**
@@ -95,6 +112,7 @@ public class Edge implements Serializable {
 	 */
 	public void setDestination(Node destination) {
 		this.destination = destination;
+		invalidateLength();
 	}
 	
 	/**
@@ -105,6 +123,48 @@ public class Edge implements Serializable {
 		return wayPoints;
 	}
 
+	/**
+	 * The way points of an edge, every change discards the cached length
+	 */
+	private class WayPointList extends AbstractList<Coordinate> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Coordinate> coordinates = new ArrayList<Coordinate>();
+
+		@Override
+		public Coordinate get(int index) {
+			return coordinates.get(index);
+		}
+
+		@Override
+		public int size() {
+			return coordinates.size();
+		}
+
+		@Override
+		public Coordinate set(int index, Coordinate element) {
+			Coordinate old = coordinates.set(index, element);
+			invalidateLength();
+			return old;
+		}
+
+		@Override
+		public void add(int index, Coordinate element) {
+			coordinates.add(index, element);
+			modCount++;
+			invalidateLength();
+		}
+
+		@Override
+		public Coordinate remove(int index) {
+			Coordinate old = coordinates.remove(index);
+			modCount++;
+			invalidateLength();
+			return old;
+		}
+	}
+
 	
 
 	
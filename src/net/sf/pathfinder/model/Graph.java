@@ -21,6 +21,7 @@ package net.sf.pathfinder.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.sf.pathfinder.util.GraphCache;
 import net.sf.pathfinder.util.GraphIO;
 import net.sf.pathfinder.util.StringUtils;
 
@@ -33,6 +34,8 @@ public class Graph {
 	private int height;
 	private int endNodes = -1;
 	private int edgeCount = -1;
+	private CompiledGraph compiledGraph;
+	private NameIndex nameIndex;
 	
 	/**
 	 * Creates a new graph
@@ -49,18 +52,73 @@ public class Graph {
 		return nodes;
 	}
 	
+	/**
+	 * Gets the compiled, read-only snapshot of this graph.
+	 * The snapshot is created on first access and reused until {@link #invalidate()} is called.
+	 * @return The compiled graph
+	 */
+	public synchronized CompiledGraph getCompiledGraph() {
+		if (compiledGraph == null) {
+			compiledGraph = CompiledGraph.compile(this);
+		}
+		return compiledGraph;
+	}
+	
+	/**
+	 * Gets the index of the node names.
+	 * The index is created on first access and reused until {@link #invalidate()}
+	 * or {@link #invalidateNames()} is called.
+	 * @return The name index
+	 */
+	public synchronized NameIndex getNameIndex() {
+		if (nameIndex == null) {
+			nameIndex = NameIndex.create(nodes);
+		}
+		return nameIndex;
+	}
+	
+	/**
+	 * Finds the node with the specified name
+	 * @param name Name of the node to find
+	 * @return The node or null if the name was not found
+	 */
+	public Node findNode(String name) {
+		return getNameIndex().findNode(name);
+	}
+	
+	/**
+	 * Discards all data derived from the graph structure.
+	 * Has to be called after nodes, edges or way points were changed.
+	 */
+	public synchronized void invalidate() {
+		compiledGraph = null;
+		nameIndex = null;
+		endNodes = -1;
+		edgeCount = -1;
+	}
+	
+	/**
+	 * Discards only the name index.
+	 * Has to be called after node names were changed, the graph structure and
+	 * the data derived from it stay valid.
+	 */
+	public synchronized void invalidateNames() {
+		nameIndex = null;
+	}
+	
 	public void save(String file) {
 		GraphIO.saveGraph(this, file);
 	}
 	
 	/**
-	 * Loads a graph from file
+	 * Loads a graph from file. Binary graph files are read directly, XML graph
+	 * files through the {@link GraphCache}
 	 * @param filename The file
 	 * @return A graph
 	 * @throws IOException If any error occures
 	 */
 	public static Graph load(String filename) {
-		return GraphIO.loadGraph(filename);
+		return GraphCache.load(filename);
 	}
 
 	public int getWidth() {
@@ -0,0 +1,325 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A step journal streaming the encoded steps into append-only binary files,
+ * so the replay of very long calculations does not have to fit into the
+ * heap. The files are read back through memory mapped windows, steps are
+ * paged in when they are accessed.
+ * <p>
+ * Nodes and edges are stored by their ids in the {@link CompiledGraph} the
+ * journal was created for. Three files are written: the steps (fixed size
+ * records), the path steps and the backtracking nodes. The latter two are
+ * named after the step file with the suffixes <code>.path</code> and
+ * <code>.backtracking</code>.
+ */
+public class MappedStepJournal extends AbstractStepJournal implements Closeable {
+
+	// int kept steps, int reversed, long path start, long backtracking start, int backtracking count, int unused
+	private static final int STEP_SIZE = 32;
+	private static final int PATH_STEP_SIZE = 8;
+	private static final int NODE_SIZE = 4;
+
+	private final CompiledGraph graph;
+	private final File[] files;
+	private final DataOutputStream stepOutput;
+	private final DataOutputStream pathOutput;
+	private final DataOutputStream backTrackingOutput;
+	private final MappedRegion stepInput;
+	private final MappedRegion pathInput;
+	private final MappedRegion backTrackingInput;
+
+	private int size = 0;
+	private long pathStepCount = 0;
+	private long backTrackingNodeCount = 0;
+	private boolean flushed = true;
+	private boolean temporary = false;
+
+	/**
+	 * Creates a new, empty journal. Existing files are overwritten.
+	 * @param file The step file
+	 * @param graph The graph the recorded calculation runs on
+	 * @throws IOException If the files can't be created
+	 */
+	public MappedStepJournal(File file, CompiledGraph graph) throws IOException {
+		this.graph = graph;
+		this.files = new File[] { file, new File(file.getPath() + ".path"),
+				new File(file.getPath() + ".backtracking") };
+		stepOutput = createOutput(files[0]);
+		pathOutput = createOutput(files[1]);
+		backTrackingOutput = createOutput(files[2]);
+		stepInput = new MappedRegion(files[0]);
+		pathInput = new MappedRegion(files[1]);
+		backTrackingInput = new MappedRegion(files[2]);
+	}
+
+	/**
+	 * Creates a journal in temporary files, which are deleted when the journal
+	 * is closed or the virtual machine exits
+	 * @param graph The graph the recorded calculation runs on
+	 * @return The journal
+	 * @throws IOException If the files can't be created
+	 */
+	public static MappedStepJournal createTemporary(CompiledGraph graph) throws IOException {
+		File file = File.createTempFile("pathfinder", ".trace");
+		MappedStepJournal journal = new MappedStepJournal(file, graph);
+		journal.temporary = true;
+		for (File f : journal.files) {
+			f.deleteOnExit();
+		}
+		return journal;
+	}
+
+	private static DataOutputStream createOutput(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+	}
+
+	/**
+	 * Gets the number of recorded steps
+	 * @return The number of steps
+	 */
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Closes the files, temporary files are deleted. The journal can't be
+	 * used afterwards.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			stepOutput.close();
+			pathOutput.close();
+			backTrackingOutput.close();
+			stepInput.close();
+			pathInput.close();
+			backTrackingInput.close();
+		} finally {
+			if (temporary) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes and deletes the files
+	 * @throws IOException If the files can't be closed
+	 */
+	public synchronized void delete() throws IOException {
+		close();
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	@Override
+	protected void prepareRead() {
+		if (flushed) {
+			return;
+		}
+		try {
+			stepOutput.flush();
+			pathOutput.flush();
+			backTrackingOutput.flush();
+			flushed = true;
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't write the step journal", e);
+		}
+	}
+
+	@Override
+	protected void appendStep(int keptSteps, boolean reversed, long pathStart,
+			long backTrackingStart, int backTrackingCount) {
+		try {
+			stepOutput.writeInt(keptSteps);
+			stepOutput.writeInt(reversed ? 1 : 0);
+			stepOutput.writeLong(pathStart);
+			stepOutput.writeLong(backTrackingStart);
+			stepOutput.writeInt(backTrackingCount);
+			stepOutput.writeInt(0);
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't write the step journal", e);
+		}
+		size++;
+		flushed = false;
+	}
+
+	@Override
+	protected int getKeptSteps(int step) {
+		return stepInput.getInt((long) step * STEP_SIZE);
+	}
+
+	@Override
+	protected boolean isReversed(int step) {
+		return stepInput.getInt((long) step * STEP_SIZE + 4) != 0;
+	}
+
+	@Override
+	protected long getPathStart(int step) {
+		return stepInput.getLong((long) step * STEP_SIZE + 8);
+	}
+
+	@Override
+	protected long getBackTrackingStart(int step) {
+		return stepInput.getLong((long) step * STEP_SIZE + 16);
+	}
+
+	@Override
+	protected int getBackTrackingCount(int step) {
+		return stepInput.getInt((long) step * STEP_SIZE + 24);
+	}
+
+	@Override
+	protected void appendPathStep(Node node, Edge edge) {
+		int nodeId = getNodeId(node);
+		try {
+			pathOutput.writeInt(nodeId);
+			pathOutput.writeInt(getEdgeId(nodeId, edge));
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't write the step journal", e);
+		}
+		pathStepCount++;
+		flushed = false;
+	}
+
+	@Override
+	protected long getPathStepCount() {
+		return pathStepCount;
+	}
+
+	@Override
+	protected Node getPathStepNode(long index) {
+		return graph.getNode(pathInput.getInt(index * PATH_STEP_SIZE));
+	}
+
+	@Override
+	protected Edge getPathStepEdge(long index) {
+		int edge = pathInput.getInt(index * PATH_STEP_SIZE + 4);
+		return edge < 0 ? null : graph.getEdge(edge);
+	}
+
+	@Override
+	protected void appendBackTrackingNode(Node node) {
+		try {
+			backTrackingOutput.writeInt(getNodeId(node));
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't write the step journal", e);
+		}
+		backTrackingNodeCount++;
+		flushed = false;
+	}
+
+	@Override
+	protected long getBackTrackingNodeCount() {
+		return backTrackingNodeCount;
+	}
+
+	@Override
+	protected Node getBackTrackingNode(long index) {
+		return graph.getNode(backTrackingInput.getInt(index * NODE_SIZE));
+	}
+
+	private int getNodeId(Node node) {
+		int id = graph.getId(node);
+		if (id < 0) {
+			throw new IllegalArgumentException("The node is not part of the graph");
+		}
+		return id;
+	}
+
+	private int getEdgeId(int node, Edge edge) {
+		if (edge == null) {
+			return -1;
+		}
+		for (int e = graph.getFirstEdge(node); e < graph.getLastEdge(node); e++) {
+			if (graph.getEdge(e) == edge) {
+				return e;
+			}
+		}
+		for (int i = graph.getFirstReverseEdge(node); i < graph.getLastReverseEdge(node); i++) {
+			int e = graph.getReverseEdge(i);
+			if (graph.getEdge(e) == edge) {
+				return e;
+			}
+		}
+		throw new IllegalArgumentException("The edge is not part of the graph");
+	}
+
+	/**
+	 * A read-only window of a growing file, remapped when a position outside
+	 * of it is accessed
+	 */
+	private static class MappedRegion {
+
+		private static final long WINDOW_SIZE = 16L << 20;
+		private static final long WINDOW_ALIGNMENT = WINDOW_SIZE / 2;
+
+		private final RandomAccessFile file;
+		private MappedByteBuffer buffer;
+		private long start = 0;
+		private long length = 0;
+
+		public MappedRegion(File file) throws IOException {
+			this.file = new RandomAccessFile(file, "r");
+		}
+
+		public int getInt(long position) {
+			map(position, 4);
+			return buffer.getInt((int) (position - start));
+		}
+
+		public long getLong(long position) {
+			map(position, 8);
+			return buffer.getLong((int) (position - start));
+		}
+
+		private void map(long position, int count) {
+			if (buffer != null && position >= start && position + count <= start + length) {
+				return;
+			}
+			try {
+				FileChannel channel = file.getChannel();
+				start = position - position % WINDOW_ALIGNMENT;
+				length = Math.min(WINDOW_SIZE, channel.size() - start);
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			} catch (IOException e) {
+				throw new IllegalStateException("Can't read the step journal", e);
+			}
+		}
+
+		public void close() throws IOException {
+			buffer = null;
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.pathfinder.util.StringUtils;
+
+/**
+ * An index over the names of the nodes of a graph.
+ * Exact lookups go through a hash map, the distinct names are kept in an
+ * array sorted case-insensitively, so all names starting with a prefix are
+ * found by binary search.
+ */
+public class NameIndex {
+
+	private final Map<String, Node> nodes;
+	private final String[] names;
+
+	private NameIndex(Map<String, Node> nodes, String[] names) {
+		this.nodes = nodes;
+		this.names = names;
+	}
+
+	/**
+	 * Creates the index of the specified nodes. Unnamed nodes are skipped,
+	 * if several nodes have the same name, the first one is found.
+	 * @param nodes The nodes
+	 * @return The index
+	 */
+	public static NameIndex create(Collection<Node> nodes) {
+		Map<String, Node> nodeMap = new HashMap<String, Node>();
+		List<String> names = new ArrayList<String>();
+		for (Node node : nodes) {
+			String name = node.getName();
+			if (StringUtils.isNullOrEmpty(name) || nodeMap.containsKey(name)) {
+				continue;
+			}
+			nodeMap.put(name, node);
+			names.add(name);
+		}
+		String[] sortedNames = names.toArray(new String[names.size()]);
+		Arrays.sort(sortedNames, String.CASE_INSENSITIVE_ORDER);
+		return new NameIndex(nodeMap, sortedNames);
+	}
+
+	/**
+	 * Finds the node with the specified name
+	 * @param name The name, case-sensitive
+	 * @return The node or null, if there is no node with that name
+	 */
+	public Node findNode(String name) {
+		if (StringUtils.isNullOrEmpty(name)) {
+			return null;
+		}
+		return nodes.get(name);
+	}
+
+	/**
+	 * Gets the number of distinct names
+	 * @return The number of names
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Gets a name
+	 * @param index The position of the name in the case-insensitive order
+	 * @return The name
+	 */
+	public String getName(int index) {
+		return names[index];
+	}
+
+	/**
+	 * Finds the first name, in case-insensitive order, starting with the
+	 * specified prefix
+	 * @param prefix The prefix, case-insensitive
+	 * @return The position of the name or -1, if no name starts with the prefix
+	 */
+	public int findFirst(String prefix) {
+		int position = Arrays.binarySearch(names, prefix, String.CASE_INSENSITIVE_ORDER);
+		if (position < 0) {
+			position = -position - 1;
+		}
+		// names equal to the prefix ignoring case may precede the found one
+		while (position > 0 && String.CASE_INSENSITIVE_ORDER.compare(names[position - 1], prefix) == 0) {
+			position--;
+		}
+		if (position < names.length && startsWithIgnoreCase(names[position], prefix)) {
+			return position;
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the names starting with the specified prefix
+	 * @param prefix The prefix, case-insensitive
+	 * @param limit The maximum number of names to return
+	 * @return The names in case-insensitive order
+	 */
+	public List<String> complete(String prefix, int limit) {
+		List<String> result = new ArrayList<String>();
+		int position = findFirst(prefix);
+		if (position < 0) {
+			return result;
+		}
+		while (position < names.length && result.size() < limit
+				&& startsWithIgnoreCase(names[position], prefix)) {
+			result.add(names[position++]);
+		}
+		return result;
+	}
+
+	private static boolean startsWithIgnoreCase(String name, String prefix) {
+		return name.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+}
@@ -42,8 +42,12 @@ public class Path implements Serializable {
 		return path;
 	}
 	
-	public int getLength() {
-		int length = 0;
+	/**
+	 * Gets the length of the path
+	 * @return The sum of the edge lengths
+	 */
+	public double getLength() {
+		double length = 0;
 		for (PathStep step : path) {
 			if (step.next != null) {
 				length += step.next.getLength();
@@ -18,8 +18,9 @@
 package net.sf.pathfinder.model;
 
 import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,8 +49,11 @@ public class PathStatistics extends Observable implements Serializable {
 	private Node destination;
 	@XmlElement
 	private boolean pathFound = true;
+	@XmlElement
+	private boolean complete = true;
+	private boolean cached = false;
 	@XmlElements(@XmlElement(type=Path.class))
-	private List<Path> paths = new ArrayList<Path>();
+	private List<Path> paths = new StepJournal();
 	private Map<PropertyInfo, Object> propertyMap = new HashMap<PropertyInfo, Object>();
 
 	private int selectedPathIndex = -1;
@@ -59,6 +63,9 @@ public class PathStatistics extends Observable implements Serializable {
 	private boolean visible = true;
 	private boolean paintBacktrackingNodes = false;
 	private long duration = 0;
+	private int forwardSettledCount = 0;
+	private int backwardSettledCount = 0;
+	private int expandedCount = 0;
 
 	/**
 	 * Creates new PathStatistics
@@ -94,10 +101,70 @@ public class PathStatistics extends Observable implements Serializable {
 		return destination;
 	}
 
+	/**
+	 * Gets the paths of the recorded calculation steps.
+	 * The steps are stored in a {@link StepJournal}, the paths are rebuilt
+	 * when they are accessed.
+	 * @return The paths
+	 */
 	public List<Path> getPaths() {
 		return paths;
 	}
 
+	/**
+	 * Sets the list the paths of the calculation steps are recorded in,
+	 * e.g. a {@link MappedStepJournal}. Has to be set before the first step
+	 * is recorded. A replaced list is closed, if it holds any resources.
+	 * @param paths The list
+	 */
+	public void setPaths(List<Path> paths) {
+		if (this.paths != paths) {
+			closePaths();
+		}
+		this.paths = paths;
+	}
+
+	/**
+	 * Releases the resources of the recorded steps, e.g. the files of a
+	 * {@link MappedStepJournal}. The steps are discarded, so the statistics
+	 * must not be displayed anymore.
+	 */
+	public void dispose() {
+		closePaths();
+		paths = new StepJournal();
+		selectedPathIndex = -1;
+	}
+
+	private void closePaths() {
+		if (paths instanceof Closeable) {
+			try {
+				((Closeable) paths).close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Records the path of the next calculation step
+	 * @param path The path of the step, may be null
+	 * @param addedBackTrackingNodes The backtracking nodes added since the
+	 * previous step
+	 */
+	public void addStep(Path path, List<Node> addedBackTrackingNodes) {
+		if (paths instanceof AbstractStepJournal) {
+			((AbstractStepJournal) paths).add(path, addedBackTrackingNodes);
+			return;
+		}
+		Path step = path == null ? new Path() : path;
+		Path last = getLastPath();
+		if (last != null) {
+			step.getBackTrackingNodes().addAll(last.getBackTrackingNodes());
+		}
+		step.getBackTrackingNodes().addAll(addedBackTrackingNodes);
+		paths.add(step);
+	}
+
 	public Path getSelectedPath() {
 		if (getSelectedPathIndex() < 0) {
 			return null;
@@ -222,6 +289,41 @@ public class PathStatistics extends Observable implements Serializable {
 		}
 	}
 
+	/**
+	 * Indicates whether the calculation finished. A cancelled calculation
+	 * ends with its best partial result, which may not reach the destination
+	 * or may not be the shortest path.
+	 * @return True if the calculation finished, false if it was cancelled
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Sets whether the calculation finished
+	 * @param complete False if the calculation was cancelled
+	 */
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 * Indicates whether the result was taken from a route cache. Cached
+	 * results only contain the final path, not the steps of the calculation.
+	 * @return True if the result was cached, otherwise false
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Sets whether the result was taken from a route cache
+	 * @param cached True if the result was cached
+	 */
+	public void setCached(boolean cached) {
+		this.cached = cached;
+	}
+
 	public long getDuration() {
 		return duration;
 	}
@@ -229,4 +331,55 @@ public class PathStatistics extends Observable implements Serializable {
 	public void setDuration(long duration) {
 		this.duration = duration;
 	}
+
+	/**
+	 * Gets the number of nodes settled by the (forward) search
+	 * @return The number of settled nodes
+	 */
+	public int getForwardSettledCount() {
+		return forwardSettledCount;
+	}
+
+	/**
+	 * Sets the number of nodes settled by the (forward) search
+	 * @param forwardSettledCount The number of settled nodes
+	 */
+	public void setForwardSettledCount(int forwardSettledCount) {
+		this.forwardSettledCount = forwardSettledCount;
+	}
+
+	/**
+	 * Gets the number of nodes settled by the backward search of a
+	 * bidirectional algorithm
+	 * @return The number of settled nodes
+	 */
+	public int getBackwardSettledCount() {
+		return backwardSettledCount;
+	}
+
+	/**
+	 * Sets the number of nodes settled by the backward search of a
+	 * bidirectional algorithm
+	 * @param backwardSettledCount The number of settled nodes
+	 */
+	public void setBackwardSettledCount(int backwardSettledCount) {
+		this.backwardSettledCount = backwardSettledCount;
+	}
+
+	/**
+	 * Gets the number of nodes expanded by the algorithm, counted the same
+	 * way for all algorithms
+	 * @return The number of expanded nodes
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * Sets the number of nodes expanded by the algorithm
+	 * @param expandedCount The number of expanded nodes
+	 */
+	public void setExpandedCount(int expandedCount) {
+		this.expandedCount = expandedCount;
+	}
 }
@@ -0,0 +1,163 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the coordinates of nodes.
+ * The grid is unbounded, only cells containing nodes are stored, so nodes
+ * can be added anywhere. Finding the nodes in a small area only looks at
+ * the cells overlapping the area.
+ */
+public class SpatialIndex {
+
+	/**
+	 * The default edge length of a cell
+	 */
+	public static final int DEFAULT_CELL_SIZE = 32;
+
+	private final int cellSize;
+	private final Map<Long, List<Node>> cells = new HashMap<Long, List<Node>>();
+	private int size = 0;
+
+	/**
+	 * Creates a new, empty index with the default cell size
+	 */
+	public SpatialIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a new, empty index
+	 * @param cellSize The edge length of a cell
+	 */
+	public SpatialIndex(int cellSize) {
+		this.cellSize = Math.max(1, cellSize);
+	}
+
+	/**
+	 * Creates an index containing the specified nodes
+	 * @param nodes The nodes
+	 * @return The index
+	 */
+	public static SpatialIndex create(Collection<Node> nodes) {
+		SpatialIndex index = new SpatialIndex();
+		for (Node node : nodes) {
+			index.add(node);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the number of nodes in the index
+	 * @return The number of nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a node
+	 * @param node The node
+	 */
+	public void add(Node node) {
+		Long key = getKey(node.getCoordinate().getX(), node.getCoordinate().getY());
+		List<Node> cell = cells.get(key);
+		if (cell == null) {
+			cell = new ArrayList<Node>(2);
+			cells.put(key, cell);
+		}
+		cell.add(node);
+		size++;
+	}
+
+	/**
+	 * Removes a node
+	 * @param node The node
+	 * @return True if the node was removed, false if it was not in the index
+	 */
+	public boolean remove(Node node) {
+		Long key = getKey(node.getCoordinate().getX(), node.getCoordinate().getY());
+		List<Node> cell = cells.get(key);
+		if (cell == null || !cell.remove(node)) {
+			return false;
+		}
+		if (cell.isEmpty()) {
+			cells.remove(key);
+		}
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all nodes
+	 */
+	public void clear() {
+		cells.clear();
+		size = 0;
+	}
+
+	/**
+	 * Finds the nodes within the specified rectangle (bounds inclusive)
+	 * @param minX The smallest x coordinate
+	 * @param minY The smallest y coordinate
+	 * @param maxX The largest x coordinate
+	 * @param maxY The largest y coordinate
+	 * @return The nodes
+	 */
+	public List<Node> find(int minX, int minY, int maxX, int maxY) {
+		List<Node> result = new ArrayList<Node>();
+		int minColumn = getCell(minX);
+		int maxColumn = getCell(maxX);
+		int minRow = getCell(minY);
+		int maxRow = getCell(maxY);
+		for (int column = minColumn; column <= maxColumn; column++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				List<Node> cell = cells.get(getCellKey(column, row));
+				if (cell == null) {
+					continue;
+				}
+				for (Node node : cell) {
+					Coordinate coordinate = node.getCoordinate();
+					if (coordinate.getX() >= minX && coordinate.getX() <= maxX
+							&& coordinate.getY() >= minY && coordinate.getY() <= maxY) {
+						result.add(node);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private int getCell(int coordinate) {
+		return (int) Math.floor((double) coordinate / cellSize);
+	}
+
+	private Long getKey(int x, int y) {
+		return getCellKey(getCell(x), getCell(y));
+	}
+
+	private static Long getCellKey(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+}
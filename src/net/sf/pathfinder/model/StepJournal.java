@@ -0,0 +1,129 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import net.sf.pathfinder.util.IntList;
+
+/**
+ * A step journal keeping the encoded steps on the heap
+ */
+public class StepJournal extends AbstractStepJournal implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final IntList keptSteps = new IntList();
+	private final IntList pathStarts = new IntList();
+	private final BitSet reversed = new BitSet();
+	private final IntList backTrackingStarts = new IntList();
+	private final IntList backTrackingCounts = new IntList();
+
+	private final List<Node> nodes = new ArrayList<Node>();
+	private final List<Edge> edges = new ArrayList<Edge>();
+	private final List<Node> backTrackingNodes = new ArrayList<Node>();
+
+	/**
+	 * Creates a new, empty journal
+	 */
+	public StepJournal() {
+	}
+
+	/**
+	 * Gets the number of recorded steps
+	 * @return The number of steps
+	 */
+	@Override
+	public synchronized int size() {
+		return keptSteps.size();
+	}
+
+	@Override
+	protected void appendStep(int keptSteps, boolean reversed, long pathStart,
+			long backTrackingStart, int backTrackingCount) {
+		this.reversed.set(this.keptSteps.size(), reversed);
+		this.keptSteps.add(keptSteps);
+		this.pathStarts.add((int) pathStart);
+		this.backTrackingStarts.add((int) backTrackingStart);
+		this.backTrackingCounts.add(backTrackingCount);
+	}
+
+	@Override
+	protected int getKeptSteps(int step) {
+		return keptSteps.get(step);
+	}
+
+	@Override
+	protected boolean isReversed(int step) {
+		return reversed.get(step);
+	}
+
+	@Override
+	protected long getPathStart(int step) {
+		return pathStarts.get(step);
+	}
+
+	@Override
+	protected long getBackTrackingStart(int step) {
+		return backTrackingStarts.get(step);
+	}
+
+	@Override
+	protected int getBackTrackingCount(int step) {
+		return backTrackingCounts.get(step);
+	}
+
+	@Override
+	protected void appendPathStep(Node node, Edge edge) {
+		nodes.add(node);
+		edges.add(edge);
+	}
+
+	@Override
+	protected long getPathStepCount() {
+		return nodes.size();
+	}
+
+	@Override
+	protected Node getPathStepNode(long index) {
+		return nodes.get((int) index);
+	}
+
+	@Override
+	protected Edge getPathStepEdge(long index) {
+		return edges.get((int) index);
+	}
+
+	@Override
+	protected void appendBackTrackingNode(Node node) {
+		backTrackingNodes.add(node);
+	}
+
+	@Override
+	protected long getBackTrackingNodeCount() {
+		return backTrackingNodes.size();
+	}
+
+	@Override
+	protected Node getBackTrackingNode(long index) {
+		return backTrackingNodes.get((int) index);
+	}
+}
@@ -0,0 +1,133 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Frame;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JDialog;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import net.sf.pathfinder.model.PathStatistics;
+
+/**
+ * Shows the results of an algorithm comparison side by side
+ */
+public class AlgorithmComparisonDialog extends JDialog {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new AlgorithmComparisonDialog
+	 * @param owner The owner frame
+	 * @param results The statistics of the compared algorithms
+	 */
+	public AlgorithmComparisonDialog(Frame owner, List<PathStatistics> results) {
+		super(owner, "Algorithm Comparison", false);
+		setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+		JTable table = new JTable(new ComparisonTableModel(results));
+		table.setAutoCreateRowSorter(true);
+		table.setFillsViewportHeight(true);
+		getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+
+		setSize(640, 320);
+		setLocationRelativeTo(owner);
+	}
+
+	/**
+	 * One row per algorithm: time, expanded nodes and path length. Expanded
+	 * nodes are counted by
+	 * {@link net.sf.pathfinder.algo.Algorithm#getExpandedCount()}, so they
+	 * are comparable across all algorithms.
+	 */
+	private static class ComparisonTableModel extends AbstractTableModel {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final String[] COLUMNS = { "Algorithm", "Path Found", "Time (ms)",
+				"Expanded Nodes", "Length", "Complete" };
+
+		private final List<PathStatistics> results;
+
+		public ComparisonTableModel(List<PathStatistics> results) {
+			this.results = new ArrayList<PathStatistics>(results);
+		}
+
+		@Override
+		public int getRowCount() {
+			return results.size();
+		}
+
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int column) {
+			switch (column) {
+			case 1:
+				return Boolean.class;
+			case 2:
+				return Long.class;
+			case 3:
+				return Integer.class;
+			case 4:
+				return Double.class;
+			case 5:
+				return Boolean.class;
+			default:
+				return String.class;
+			}
+		}
+
+		@Override
+		public Object getValueAt(int row, int column) {
+			PathStatistics statistics = results.get(row);
+			switch (column) {
+			case 0:
+				return statistics.getAlgorithm();
+			case 1:
+				return statistics.isPathFound();
+			case 2:
+				return statistics.getDuration();
+			case 3:
+				return statistics.getExpandedCount();
+			case 4:
+				if (!statistics.isPathFound() || statistics.getLastPath() == null) {
+					return null;
+				}
+				return statistics.getLastPath().getLength();
+			case 5:
+				return statistics.isComplete();
+			default:
+				return null;
+			}
+		}
+	}
+}
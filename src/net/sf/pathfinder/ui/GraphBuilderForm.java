@@ -172,6 +172,7 @@ public class GraphBuilderForm extends JFrame {
 				public void keyReleased(KeyEvent e) {
 					if (getGraphView().getSelectedNode() != null) {
 						getGraphView().getSelectedNode().setName(nodeTitleTextField.getText());
+						getGraphView().getGraph().invalidateNames();
 					}
 				}
 
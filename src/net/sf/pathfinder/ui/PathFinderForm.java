@@ -32,8 +32,10 @@ import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
@@ -42,6 +44,7 @@ import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
@@ -59,15 +62,21 @@ import javax.swing.event.ChangeListener;
 
 import net.sf.pathfinder.PathFinder;
 import net.sf.pathfinder.algo.Algorithm;
+import net.sf.pathfinder.algo.AlgorithmComparison;
 import net.sf.pathfinder.algo.AlgorithmDescriptor;
 import net.sf.pathfinder.algo.CalculationListener;
+import net.sf.pathfinder.algo.CalculationPriority;
+import net.sf.pathfinder.algo.CalculationScheduler;
+import net.sf.pathfinder.algo.ComparisonListener;
 import net.sf.pathfinder.algo.PathCalculation;
+import net.sf.pathfinder.algo.RouteCache;
 import net.sf.pathfinder.help.HelpDispatcherListener;
 import net.sf.pathfinder.model.Graph;
 import net.sf.pathfinder.model.GraphPackage;
 import net.sf.pathfinder.model.Node;
 import net.sf.pathfinder.model.PathStatistics;
 import net.sf.pathfinder.ui.swing.GraphSelectionListener;
+import net.sf.pathfinder.ui.swing.JAutoCompleteField;
 import net.sf.pathfinder.ui.swing.JGraphView;
 import net.sf.pathfinder.ui.swing.JPathHistoryPanel;
 import net.sf.pathfinder.ui.swing.JPropertyTable;
@@ -79,8 +88,6 @@ import net.sf.pathfinder.util.StringUtils;
 import net.sf.pathfinder.util.UIUtils;
 
 
-import ca.ansir.swing.list.TextFieldList;
-import ca.ansir.swing.list.TextFieldListModel;
 
 
 
@@ -92,14 +99,19 @@ import ca.ansir.swing.list.TextFieldListModel;
 public class PathFinderForm extends JFrame {
 
 	private JGraphView graphView;
-	private TextFieldList<String> sourceTextFieldList;
-	private TextFieldList<String> destinationTextFieldList;
+	private JAutoCompleteField sourceTextField;
+	private JAutoCompleteField destinationTextField;
 	
 	private JButton findRouteButton;
+	private JMenuItem runAllItem;
+	private JMenuItem cancelItem;
+	private JCheckBoxMenuItem recordOnDiskItem;
+	private JCheckBoxMenuItem useRouteCacheItem;
 	private JSlider zoomSlider;
 	private JComboBox algorithmComboBox;
 
-	private PathCalculation currentCalculation;
+	private List<PathCalculation> runningCalculations = new ArrayList<PathCalculation>();
+	private List<AlgorithmComparison> runningComparisons = new ArrayList<AlgorithmComparison>();
 	private Algorithm currentAlgorithm;
 	private JPropertyTable propertyTable;
 
@@ -120,6 +132,7 @@ public class PathFinderForm extends JFrame {
 	private boolean adjustingSlider = false;
 
 	private CalculationListener calculationListener;
+	private ComparisonListener comparisonListener;
 	private PathHistoryModelListener pathHistoryModelListener;
 
 	private JPanel graphStatisticsPanel;
@@ -132,7 +145,6 @@ public class PathFinderForm extends JFrame {
 	
 	private ResourceManager resMan = new ResourceManager(getClass());
 	
-	private TextFieldListModel<String> textFieldListModel;
 	private Node currentSourceNode;
 	private Node currentDestinationNode;
 	
@@ -156,6 +168,7 @@ public class PathFinderForm extends JFrame {
 		historyModel.addPathHistoryModelListener(pathHistoryModelListener);
 		
 		calculationListener = new CalculationListenerImpl();
+		comparisonListener = new ComparisonListenerImpl();
 		
 		//Load the help file
 		helpTextPane.setContentType("text/html");
@@ -564,48 +577,82 @@ public class PathFinderForm extends JFrame {
 			findRouteButton.addActionListener(new ActionListener() {
 				@Override
 				public void actionPerformed(ActionEvent e) {
-					Graph graph = getGraphView().getGraph();
-					if (graph == null) {
-						UIUtils.showErrorMessage(PathFinder.getMainForm(), 
-								new Exception("Please load a graph first."));
+					Node[] route = getRoute();
+					if (route == null) {
 						return;
 					}
-					final Node start = graph.getNodes().findNode(getSourceTextField().getText());
-					final Node end = graph.getNodes().findNode(getDestinationTextField().getText());
 
-					if (start == null || end == null) {
-						UIUtils.showErrorMessage(PathFinder.getMainForm(), 
-								new Exception("Your source or destination does not exists in the loaded graph."));
-						return; 
-					}
-
-					currentCalculation = new PathCalculation(getCurrentAlgorithm(),
-							graph, 
-							start, 
-							end,
+					// every query gets its own algorithm instance, so the
+					// properties can be changed while it is queued
+					PathCalculation calculation = new PathCalculation(getCurrentAlgorithm().copy(),
+							getGraphView().getGraph(), 
+							route[0], 
+							route[1],
 							calculationListener);
+					try {
+						if (recordOnDiskItem.isSelected()) {
+							calculation.setTraceFile(null);
+						}
+						if (useRouteCacheItem.isSelected()) {
+							calculation.setRouteCache(RouteCache.getDefault());
+						}
+						CalculationScheduler.getDefault().submit(calculation,
+								CalculationPriority.INTERACTIVE);
+					} catch (IOException ex) {
+						UIUtils.showErrorMessage(PathFinder.getMainForm(), ex);
+						return;
+					} catch (RejectedExecutionException ex) {
+						calculation.getStatistics().dispose();
+						UIUtils.showErrorMessage(PathFinder.getMainForm(), ex);
+						return;
+					}
 
-					currentCalculation.start();
-
-					getSourceTextField().setEnabled(false);
-					getDestinationTextField().setEnabled(false);
-					findRouteButton.setEnabled(false);
-					algorithmComboBox.setEnabled(false);
-
+					runningCalculations.add(calculation);
+					updateCancelItem();
 				}
 			});
 		}
 		return findRouteButton;
 	}
 
+	/**
+	 * Gets the source and destination node of the route to calculate
+	 * @return The source and destination node, or null if they could not
+	 *         be found; the user is notified in this case
+	 */
+	private Node[] getRoute() {
+		Graph graph = getGraphView().getGraph();
+		if (graph == null) {
+			UIUtils.showErrorMessage(PathFinder.getMainForm(), 
+					new Exception("Please load a graph first."));
+			return null;
+		}
+		Node start = graph.findNode(getSourceTextField().getText());
+		Node end = graph.findNode(getDestinationTextField().getText());
+
+		if (start == null || end == null) {
+			UIUtils.showErrorMessage(PathFinder.getMainForm(), 
+					new Exception("Your source or destination does not exists in the loaded graph."));
+			return null; 
+		}
+		return new Node[] { start, end };
+	}
+
+	/**
+	 * Enables the cancel menu item while calculations are queued or running
+	 */
+	private void updateCancelItem() {
+		cancelItem.setEnabled(!runningCalculations.isEmpty() || !runningComparisons.isEmpty());
+	}
+
 	/**
 	 * Gets the destination text field
 	 * @return The destination text field
 	 */
 	private JTextField getDestinationTextField() {
-		if (destinationTextFieldList == null) {
-			destinationTextFieldList = new TextFieldList<String>(new String[0]);
-			destinationTextFieldList.getAutoCompleteField().addKeyListener(new KeyListener() {
+		if (destinationTextField == null) {
+			destinationTextField = new JAutoCompleteField();
+			destinationTextField.addKeyListener(new KeyListener() {
 
 				@Override
 				public void keyPressed(KeyEvent e) {
@@ -615,8 +662,7 @@ public class PathFinderForm extends JFrame {
 				@Override
 				public void keyReleased(KeyEvent e) {
 					if (getGraphView().getGraph() != null) {
-						Node node = graphView.getGraph().getNodes().findNode(
-								destinationTextFieldList.getAutoCompleteField().getText());
+						Node node = graphView.getGraph().findNode(destinationTextField.getText());
 						
 						if (currentDestinationNode != null) {
 							getGraphView().setNodeHighlighted(currentDestinationNode, false);
@@ -634,11 +680,10 @@ public class PathFinderForm extends JFrame {
 				
 			});
 			
-			//destinationTextFieldList.getAutoCompleteField().setText("Koblenz");
-			PathFinder.getHelpDispatcher().addHelpMapping(destinationTextFieldList.getAutoCompleteField(), 
-					"destinationTextField");
+			//destinationTextField.setText("Koblenz");
+			PathFinder.getHelpDispatcher().addHelpMapping(destinationTextField, "destinationTextField");
 		}
-		return destinationTextFieldList.getAutoCompleteField();
+		return destinationTextField;
 	}
 
 	/**
@@ -646,9 +691,9 @@ public class PathFinderForm extends JFrame {
 	 * @return The source text field
 	 */
 	private JTextField getSourceTextField() {
-		if (sourceTextFieldList == null) {
-			sourceTextFieldList = new TextFieldList<String>(new String[0]);
-			sourceTextFieldList.getAutoCompleteField().addKeyListener(new KeyListener() {
+		if (sourceTextField == null) {
+			sourceTextField = new JAutoCompleteField();
+			sourceTextField.addKeyListener(new KeyListener() {
 
 				@Override
 				public void keyPressed(KeyEvent e) {
@@ -657,8 +702,7 @@ public class PathFinderForm extends JFrame {
 				@Override
 				public void keyReleased(KeyEvent e) {
 					if (getGraphView().getGraph() != null) {
-						Node node = getGraphView().getGraph().getNodes().findNode(
-								sourceTextFieldList.getAutoCompleteField().getText());
+						Node node = getGraphView().getGraph().findNode(sourceTextField.getText());
 						if (currentSourceNode != null) {
 							getGraphView().setNodeHighlighted(currentSourceNode, false);
 						}
@@ -675,10 +719,10 @@ public class PathFinderForm extends JFrame {
 				
 			});
 			
-			//sourceTextFieldList.getAutoCompleteField().setText("Binz");
-			PathFinder.getHelpDispatcher().addHelpMapping(sourceTextFieldList, "sourceTextField");
+			//sourceTextField.setText("Binz");
+			PathFinder.getHelpDispatcher().addHelpMapping(sourceTextField, "sourceTextField");
 		}
-		return sourceTextFieldList.getAutoCompleteField();
+		return sourceTextField;
 	}
 
 	/**
@@ -750,17 +794,8 @@ public class PathFinderForm extends JFrame {
 						graphSizeLabel.setText(String.format("%dx%d", graph.getWidth(), graph.getHeight()));
 						
 						if (graph != null) {
-							List<String> nodeNames = new ArrayList<String>();
-							for (Node node : graph.getNodes()) {
-								if (StringUtils.isNullOrEmpty(node.getName())) {
-									continue;
-								}
-								nodeNames.add(node.getName());
-							}
-							
-							textFieldListModel = new TextFieldListModel<String>(nodeNames);
-							sourceTextFieldList.setModel(textFieldListModel);
-							destinationTextFieldList.setModel(textFieldListModel);
+							sourceTextField.setGraph(graph);
+							destinationTextField.setGraph(graph);
 						}
 					} catch (Exception ex) {
 						UIUtils.showErrorMessage(PathFinder.getMainForm(), ex);
@@ -791,6 +826,47 @@ public class PathFinderForm extends JFrame {
 		graphMenu.add(graphEditorItem);
 		graphMenu.addSeparator();
 		graphMenu.add(exitItem);
+
+		JMenu calculationMenu = new JMenu("Calculation");
+		menuBar.add(calculationMenu);
+
+		runAllItem = new JMenuItem(resMan.getString("runAll.text"), resMan.getIcon("runAll.icon"));
+		runAllItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				Node[] route = getRoute();
+				if (route == null) {
+					return;
+				}
+				AlgorithmComparison comparison = new AlgorithmComparison(Algorithm.getAlgorithms(),
+						getGraphView().getGraph(), route[0], route[1], comparisonListener);
+				comparison.start();
+				runningComparisons.add(comparison);
+				updateCancelItem();
+			}
+		});
+
+		cancelItem = new JMenuItem(resMan.getString("cancelCalculation.text"));
+		cancelItem.setEnabled(false);
+		cancelItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				for (PathCalculation calculation : runningCalculations) {
+					calculation.cancel();
+				}
+				for (AlgorithmComparison comparison : runningComparisons) {
+					comparison.cancel();
+				}
+			}
+		});
+
+		recordOnDiskItem = new JCheckBoxMenuItem(resMan.getString("recordOnDisk.text"));
+		useRouteCacheItem = new JCheckBoxMenuItem(resMan.getString("useRouteCache.text"), true);
+		calculationMenu.add(runAllItem);
+		calculationMenu.add(cancelItem);
+		calculationMenu.addSeparator();
+		calculationMenu.add(recordOnDiskItem);
+		calculationMenu.add(useRouteCacheItem);
 		setJMenuBar(menuBar);
 	}
 
@@ -808,20 +884,40 @@ public class PathFinderForm extends JFrame {
 
 	private class CalculationListenerImpl implements CalculationListener {
 	@Override
-	public void calculationCompleted(PathCalculation source, final PathStatistics result) {
+	public void calculationCompleted(final PathCalculation source, final PathStatistics result) {
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
-				getSourceTextField().setEnabled(true);
-				getDestinationTextField().setEnabled(true);
-				findRouteButton.setEnabled(true);
-				algorithmComboBox.setEnabled(true);
-
+				runningCalculations.remove(source);
+				updateCancelItem();
+				if (source.getError() != null) {
+					source.getError().printStackTrace();
+					result.dispose();
+					UIUtils.showErrorMessage(PathFinder.getMainForm(), source.getError());
+					return;
+				}
 				historyModel.add(result);
 			}
 		});		
 	}
 	}
+
+	private class ComparisonListenerImpl implements ComparisonListener {
+	@Override
+	public void comparisonCompleted(final AlgorithmComparison source, final List<PathStatistics> results) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				runningComparisons.remove(source);
+				updateCancelItem();
+				for (PathStatistics result : results) {
+					historyModel.add(result);
+				}
+				new AlgorithmComparisonDialog(PathFinderForm.this, results).setVisible(true);
+			}
+		});
+	}
+	}
 	
 	private class PathHistoryModelListenerImpl implements PathHistoryModelListener {
 		@Override
@@ -0,0 +1,150 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.ui.swing;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.NameIndex;
+
+/**
+ * A text field completing the typed text with the node names of a
+ * {@link Graph}. The {@link NameIndex} is fetched from the graph on every
+ * use, so renamed nodes are completed after {@link Graph#invalidateNames()}.
+ * The completed part is selected, so typing on replaces it. The up and down
+ * keys step through the names in alphabetical order.
+ */
+public class JAutoCompleteField extends JTextField {
+
+	private static final long serialVersionUID = 1L;
+
+	private Graph graph;
+	private boolean completing = true;
+
+	/**
+	 * Creates a new JAutoCompleteField
+	 */
+	public JAutoCompleteField() {
+		setDocument(new CompletionDocument());
+
+		getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "nextName");
+		getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "previousName");
+		getActionMap().put("nextName", new StepAction(1));
+		getActionMap().put("previousName", new StepAction(-1));
+	}
+
+	/**
+	 * Gets the graph the names are completed from
+	 * @return The graph
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Sets the graph the names are completed from
+	 * @param graph The graph, null disables the completion
+	 */
+	public void setGraph(Graph graph) {
+		this.graph = graph;
+	}
+
+	private NameIndex getNameIndex() {
+		return graph != null ? graph.getNameIndex() : null;
+	}
+
+	/**
+	 * Sets the text without completing it
+	 */
+	@Override
+	public void setText(String text) {
+		boolean oldCompleting = completing;
+		completing = false;
+		try {
+			super.setText(text);
+		} finally {
+			completing = oldCompleting;
+		}
+	}
+
+	/**
+	 * Completes the text after text was typed at its end
+	 */
+	private class CompletionDocument extends PlainDocument {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void insertString(int offs, String str, AttributeSet a) throws BadLocationException {
+			super.insertString(offs, str, a);
+
+			int typed = offs + str.length();
+			NameIndex nameIndex = getNameIndex();
+			if (!completing || nameIndex == null || typed != getLength()) {
+				return;
+			}
+			String text = getText(0, typed);
+			int position = nameIndex.findFirst(text);
+			if (position < 0) {
+				return;
+			}
+			String name = nameIndex.getName(position);
+			super.remove(0, typed);
+			super.insertString(0, name, a);
+			setCaretPosition(name.length());
+			moveCaretPosition(typed);
+		}
+	}
+
+	/**
+	 * Replaces the text with the next or previous name
+	 */
+	private class StepAction extends AbstractAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int direction;
+
+		public StepAction(int direction) {
+			this.direction = direction;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			NameIndex nameIndex = getNameIndex();
+			if (nameIndex == null || nameIndex.size() == 0) {
+				return;
+			}
+			int position = nameIndex.findFirst(getText());
+			if (position < 0) {
+				position = direction > 0 ? 0 : nameIndex.size() - 1;
+			} else if (nameIndex.getName(position).equals(getText())) {
+				position = Math.max(0, Math.min(nameIndex.size() - 1, position + direction));
+			}
+			setText(nameIndex.getName(position));
+		}
+	}
+}
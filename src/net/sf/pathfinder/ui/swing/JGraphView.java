@@ -22,13 +22,12 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Image;
-import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.swing.JComponent;
@@ -39,6 +38,7 @@ import net.sf.pathfinder.model.Graph;
 import net.sf.pathfinder.model.Node;
 import net.sf.pathfinder.model.Path;
 import net.sf.pathfinder.model.PathStatistics;
+import net.sf.pathfinder.model.SpatialIndex;
 import net.sf.pathfinder.util.GraphicUtils;
 import net.sf.pathfinder.util.StringUtils;
 
@@ -64,7 +64,8 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 	private boolean paintEdges = true;
 	private boolean paintNodes = true;
 
-	private Map<Rectangle, Node> nodePositions = new HashMap<Rectangle, Node>();
+	private SpatialIndex nodeIndex;
+	private Graph indexedGraph;
 
 	private List<GraphSelectionListener> graphSelectionListeners = new Vector<GraphSelectionListener>();
 
@@ -72,6 +73,9 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 	
 	private List<Node> highlightedNodes = new ArrayList<Node>();
 
+	// backtracking nodes painted by the last paint, collected on demand for hit-testing
+	private Set<Node> paintedBackTrackingNodes;
+
 	/**
 	 * Creates a new JGraphView
 	 */
@@ -121,6 +125,7 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 					Coordinate coordinate = new Coordinate(e.getPoint().x, e.getPoint().y);
 					coordinate = retranslateCoordinate(coordinate);
 					clickedNode = new Node(coordinate);
+					getNodeIndex().add(clickedNode);
 					getGraph().getNodes().add(clickedNode);
 				}
 
@@ -136,6 +141,8 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 					createReverseEdge(edge);
 				}
 
+				getGraph().invalidate();
+
 				//if auto select enabled -> select new node
 				if (autoSelect) {
 					setSelectedNode(clickedNode);
@@ -191,7 +198,9 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 				edge.getDestination().getEdges().remove(reverseEdge);
 			}
 		}
+		getNodeIndex().remove(node);
 		graph.getNodes().remove(node);
+		graph.invalidate();
 	}
 
 	/**
@@ -201,19 +210,96 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 	 * @return The node at the specified position or null, if there is no node
 	 */
 	private Node getNodeAt(int x, int y) {
-		for (Rectangle rect : nodePositions.keySet()) {
-			if (rect.contains(x, y))
-				return nodePositions.get(rect);
+		int highlightRadius = (int)(NODE_RADIUS * 1.5);
+		for (Node node : highlightedNodes) {
+			if (isNodeAt(node, x, y, highlightRadius)) {
+				return node;
+			}
+		}
+
+		Coordinate center = retranslateCoordinate(new Coordinate(x, y));
+		int margin = (int)Math.ceil((NODE_RADIUS + 1) / scaleFactor) + 1;
+		List<Node> candidates = getNodeIndex().find(center.getX() - margin, center.getY() - margin, 
+				center.getX() + margin, center.getY() + margin);
+		for (Node node : candidates) {
+			if (isNodeAt(node, x, y, NODE_RADIUS) && isNodePainted(node)) {
+				return node;
+			}
 		}
 		return null;
 	}
 
+	/**
+	 * Checks whether the painted node covers the specified position
+	 * @param node The node
+	 * @param x The x coordinate on the view
+	 * @param y The y coordinate on the view
+	 * @param radius The radius the node is painted with
+	 * @return True if the position is covered, otherwise false
+	 */
+	private boolean isNodeAt(Node node, int x, int y, int radius) {
+		int left = (int)(node.getCoordinate().getX() * scaleFactor) - (radius / 2);
+		int top = (int)(node.getCoordinate().getY() * scaleFactor) - (radius / 2);
+		return x >= left && x < left + radius && y >= top && y < top + radius;
+	}
+
+	/**
+	 * Checks whether the node is painted, only painted nodes can be clicked.
+	 * If the graph isn't painted, only named nodes and visible backtracking nodes are.
+	 * @param node The node
+	 * @return True if the node is painted, otherwise false
+	 */
+	private boolean isNodePainted(Node node) {
+		if (isPaintGraph() || !StringUtils.isNullOrEmpty(node.getName())) {
+			return true;
+		}
+		return getPaintedBackTrackingNodes().contains(node);
+	}
+
+	/**
+	 * Gets the backtracking nodes of the visible paths. The set is built on
+	 * first access and reused until the view is painted again or the path
+	 * history changes.
+	 * @return The painted backtracking nodes
+	 */
+	private Set<Node> getPaintedBackTrackingNodes() {
+		if (paintedBackTrackingNodes == null) {
+			paintedBackTrackingNodes = new HashSet<Node>();
+			if (pathHistoryModel != null) {
+				for (int i = 0; i < pathHistoryModel.size(); i++) {
+					PathStatistics statistics = pathHistoryModel.get(i);
+					if (statistics.isVisible() && statistics.isPaintBacktrackingNodes()
+							&& statistics.getSelectedPath() != null) {
+						paintedBackTrackingNodes.addAll(statistics.getSelectedPath().getBackTrackingNodes());
+					}
+				}
+			}
+		}
+		return paintedBackTrackingNodes;
+	}
+
+	/**
+	 * Gets the spatial index of the graph nodes.
+	 * The view keeps the index up to date while editing, it is rebuilt if the
+	 * graph was replaced or its nodes were changed elsewhere.
+	 * @return The index
+	 */
+	private SpatialIndex getNodeIndex() {
+		Graph graph = getGraph();
+		if (nodeIndex == null || indexedGraph != graph || nodeIndex.size() != graph.getNodes().size()) {
+			nodeIndex = SpatialIndex.create(graph.getNodes());
+			indexedGraph = graph;
+		}
+		return nodeIndex;
+	}
+
 	/**
 	 * Paints the component
 	 */
 	@Override
 	public void paint(Graphics g) {
 		super.paint(g);
+		paintedBackTrackingNodes = null;
 
 		// if there is a background image set -> paint it
 		if (paintBackground && (backgroundImage != null)) {
@@ -264,7 +350,6 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 			}
 		}
 
-		nodePositions.clear();
 		for (Node node : getGraph().getNodes()) {
 			Color color = null;
 			if (node.equals(selectedNode))
@@ -322,17 +407,12 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 			return;
 		}
 
-		Coordinate coord = translateCoordinate(node.getCoordinate());
-		Rectangle rect = new Rectangle(coord.getX() - (radius / 2),
-				coord.getY() - (radius / 2),
-				radius, 
-				radius);
-
-		if ((!realPaint && !StringUtils.isNullOrEmpty(node.getName())) || realPaint) {
-			nodePositions.put(rect, node);
-			
+		if (realPaint || !StringUtils.isNullOrEmpty(node.getName())) {
 			g.setColor(color);
-			g.fillOval(rect.x, rect.y, rect.width, rect.height);
+			g.fillOval((int)(node.getCoordinate().getX() * scaleFactor) - (radius / 2),
+					(int)(node.getCoordinate().getY() * scaleFactor) - (radius / 2),
+					radius, 
+					radius);
 		}
 
 	}
@@ -604,18 +684,21 @@ public class JGraphView extends JComponent implements PathHistoryModelListener {
 	@Override
 	public void pathStatisticsAdded(PathHistoryModel source,
 			PathStatistics statistics) {
+		paintedBackTrackingNodes = null;
 		repaint();
 	}
 
 	@Override
 	public void pathStatisticsChanged(PathHistoryModel source,
 			PathStatistics statistics) {
+		paintedBackTrackingNodes = null;
 		repaint();
 	}
 
 	@Override
 	public void pathStatisticsRemoved(PathHistoryModel source,
 			PathStatistics statistics) {
+		paintedBackTrackingNodes = null;
 		repaint();
 	}
 }
@@ -76,6 +76,8 @@ public class PathHistoryModel implements Observer, Serializable {
 					setSelectedPathStatistics(null);
 				}
 			}
+			statistics.deleteObserver(this);
+			statistics.dispose();
 		}
 	}
 	
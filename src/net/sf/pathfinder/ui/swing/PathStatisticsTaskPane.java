@@ -69,11 +69,23 @@ public class PathStatisticsTaskPane extends JXTaskPane {
 
 		add(new JLabel(String.format("Algorithm: %s", statistics.getAlgorithm())));
 		add(new JLabel(String.format("Path found: %s", statistics.isPathFound() ? "yes" : "no")));
+		if (!statistics.isComplete()) {
+			add(new JLabel("Incomplete: the calculation was cancelled"));
+		}
+		if (statistics.isCached()) {
+			add(new JLabel("Cached result"));
+		}
 		add(new JLabel(String.format("Time: %s ms", statistics.getDuration())));
+		if (statistics.getBackwardSettledCount() > 0) {
+			add(new JLabel(String.format("Settled nodes: %d forward, %d backward", 
+					statistics.getForwardSettledCount(), statistics.getBackwardSettledCount())));
+		} else if (statistics.getForwardSettledCount() > 0) {
+			add(new JLabel(String.format("Settled nodes: %d", statistics.getForwardSettledCount())));
+		}
 		if (statistics.isPathFound()) {
 			add(new JLabel(String.format("Steps: %d", statistics.getLastPath().getPathSteps().size())));
 			add(new JLabel(String.format("Backtracking-Nodes: %d", statistics.getLastPath().getBackTrackingNodes().size())));
-			add(new JLabel(String.format("Length: %d", statistics.getLastPath().getLength())));
+			add(new JLabel(String.format("Length: %.2f", statistics.getLastPath().getLength())));
 		}
 		add(new JLabel(String.format("Linear distance: %.2f", 
 				statistics.getStart().getCoordinate().distance(statistics.getDestination().getCoordinate()))));
@@ -0,0 +1,416 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.pathfinder.model.CompiledGraph;
+import net.sf.pathfinder.model.Coordinate;
+import net.sf.pathfinder.model.Edge;
+import net.sf.pathfinder.model.Graph;
+import net.sf.pathfinder.model.Node;
+
+/**
+ * Provides methods for loading and storing {@link Graph} instances in a
+ * compact binary format. The file is read through a memory mapped
+ * {@link FileChannel}, so no parsing is needed while loading.
+ * <p>
+ * All values are big endian. The file starts with a header of
+ * {@link #HEADER_SIZE} bytes:
+ * <pre>
+ * int  magic ("PFGB")     int  version
+ * int  width              int  height
+ * int  node count         int  edge count
+ * int  way point count    int  name count
+ * long name bytes         long source checksum
+ * </pre>
+ * followed by these sections:
+ * <ul>
+ * <li>the node coordinates: all x values, then all y values</li>
+ * <li>the node names: one index into the name dictionary per node, -1 for no name</li>
+ * <li>the adjacency in compressed sparse row form: node count + 1 edge offsets,
+ * then the destination node of each edge</li>
+ * <li>the way points: edge count + 1 way point offsets, then all x values,
+ * then all y values</li>
+ * <li>the name dictionary: every distinct name as byte length and UTF-8 bytes</li>
+ * </ul>
+ */
+public final class BinaryGraphIO {
+
+	/**
+	 * The magic number at the start of every binary graph file
+	 */
+	public static final int MAGIC = 0x50464742;
+
+	/**
+	 * The current version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The extension of binary graph files
+	 */
+	public static final String EXTENSION = ".graph.bin";
+
+	/**
+	 * The source checksum of files that were not converted from another file
+	 */
+	public static final long NO_CHECKSUM = -1;
+
+	/**
+	 * The size of the header in bytes
+	 */
+	public static final int HEADER_SIZE = 48;
+
+	private static final String CHARSET = "UTF-8";
+
+	private BinaryGraphIO() {
+
+	}
+
+	/**
+	 * Indicates whether a file is a binary graph file
+	 * @param file The file
+	 * @return True if the file starts with the {@link #MAGIC} number, otherwise false
+	 */
+	public static boolean isBinaryGraph(String file) {
+		InputStream input = null;
+		try {
+			input = new FileInputStream(file);
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = input.read();
+				if (b < 0) {
+					return false;
+				}
+				magic = (magic << 8) | b;
+			}
+			return magic == MAGIC;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads a binary graph
+	 * @param file The file to load the graph from
+	 * @return The graph
+	 * @throws IOException If the file could not be read or is no valid binary graph
+	 */
+	public static Graph loadGraph(String file) throws IOException {
+		return loadGraph(file, NO_CHECKSUM);
+	}
+
+	/**
+	 * Loads a binary graph
+	 * @param file The file to load the graph from
+	 * @param sourceChecksum The expected source checksum or {@link #NO_CHECKSUM}
+	 *            to accept any
+	 * @return The graph
+	 * @throws IOException If the file could not be read, is no valid binary graph
+	 *             or has another source checksum
+	 */
+	static Graph loadGraph(String file, long sourceChecksum) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				throw new IOException("Not a binary graph file: " + file);
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a binary graph file: " + file);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary graph version " + version + ": " + file);
+			}
+			int width = header.getInt();
+			int height = header.getInt();
+			int nodeCount = header.getInt();
+			int edgeCount = header.getInt();
+			int wayPointCount = header.getInt();
+			int nameCount = header.getInt();
+			long nameBytes = header.getLong();
+			long checksum = header.getLong();
+			if (sourceChecksum != NO_CHECKSUM && checksum != sourceChecksum) {
+				throw new IOException("Binary graph was created from another source: " + file);
+			}
+			if (nodeCount < 0 || edgeCount < 0 || wayPointCount < 0 || nameCount < 0
+					|| nameBytes < 0 || nameBytes > Integer.MAX_VALUE) {
+				throw new IOException("Corrupt binary graph file: " + file);
+			}
+			long expectedSize = HEADER_SIZE
+					+ 4L * (3L * nodeCount + (nodeCount + 1L) + edgeCount
+							+ (edgeCount + 1L) + 2L * wayPointCount)
+					+ nameBytes;
+			if (fileSize != expectedSize) {
+				throw new IOException("Corrupt binary graph file: " + file);
+			}
+
+			long position = HEADER_SIZE;
+			IntBuffer xs = mapInts(channel, position, nodeCount);
+			position += 4L * nodeCount;
+			IntBuffer ys = mapInts(channel, position, nodeCount);
+			position += 4L * nodeCount;
+			IntBuffer nameIndices = mapInts(channel, position, nodeCount);
+			position += 4L * nodeCount;
+			IntBuffer offsets = mapInts(channel, position, nodeCount + 1);
+			position += 4L * (nodeCount + 1);
+			IntBuffer targets = mapInts(channel, position, edgeCount);
+			position += 4L * edgeCount;
+			IntBuffer wayPointOffsets = mapInts(channel, position, edgeCount + 1);
+			position += 4L * (edgeCount + 1);
+			IntBuffer wayPointXs = mapInts(channel, position, wayPointCount);
+			position += 4L * wayPointCount;
+			IntBuffer wayPointYs = mapInts(channel, position, wayPointCount);
+			position += 4L * wayPointCount;
+			ByteBuffer nameBuffer = channel.map(FileChannel.MapMode.READ_ONLY, position, nameBytes);
+
+			String[] names = new String[nameCount];
+			for (int i = 0; i < nameCount; i++) {
+				int length = nameBuffer.remaining() >= 4 ? nameBuffer.getInt() : -1;
+				if (length < 0 || length > nameBuffer.remaining()) {
+					throw new IOException("Corrupt binary graph file: " + file);
+				}
+				byte[] bytes = new byte[length];
+				nameBuffer.get(bytes);
+				names[i] = new String(bytes, CHARSET);
+			}
+
+			Node[] nodes = new Node[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				int nameIndex = nameIndices.get(i);
+				if (nameIndex < -1 || nameIndex >= nameCount) {
+					throw new IOException("Corrupt binary graph file: " + file);
+				}
+				Coordinate coordinate = new Coordinate(xs.get(i), ys.get(i));
+				nodes[i] = new Node(coordinate, nameIndex < 0 ? null : names[nameIndex]);
+			}
+
+			if (offsets.get(0) != 0 || offsets.get(nodeCount) != edgeCount
+					|| wayPointOffsets.get(0) != 0 || wayPointOffsets.get(edgeCount) != wayPointCount) {
+				throw new IOException("Corrupt binary graph file: " + file);
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				int firstEdge = offsets.get(i);
+				int lastEdge = offsets.get(i + 1);
+				if (lastEdge < firstEdge || lastEdge > edgeCount) {
+					throw new IOException("Corrupt binary graph file: " + file);
+				}
+				List<Edge> nodeEdges = nodes[i].getEdges();
+				for (int edgeId = firstEdge; edgeId < lastEdge; edgeId++) {
+					int target = targets.get(edgeId);
+					int firstWayPoint = wayPointOffsets.get(edgeId);
+					int lastWayPoint = wayPointOffsets.get(edgeId + 1);
+					if (target < 0 || target >= nodeCount
+							|| lastWayPoint < firstWayPoint || lastWayPoint > wayPointCount) {
+						throw new IOException("Corrupt binary graph file: " + file);
+					}
+					Edge edge = new Edge(nodes[i], nodes[target]);
+					List<Coordinate> wayPoints = edge.getWayPoints();
+					for (int w = firstWayPoint; w < lastWayPoint; w++) {
+						wayPoints.add(new Coordinate(wayPointXs.get(w), wayPointYs.get(w)));
+					}
+					nodeEdges.add(edge);
+				}
+			}
+
+			Graph graph = new Graph();
+			graph.setWidth(width);
+			graph.setHeight(height);
+			for (Node node : nodes) {
+				graph.getNodes().add(node);
+			}
+			return graph;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Saves a {@link Graph} in the binary format.
+	 * Edges pointing to nodes that are not part of the graph are not stored.
+	 * @param graph The graph
+	 * @param file The file to save the graph to
+	 * @throws IOException If the file could not be written
+	 */
+	public static void saveGraph(Graph graph, String file) throws IOException {
+		saveGraph(graph, file, NO_CHECKSUM);
+	}
+
+	/**
+	 * Saves a {@link Graph} in the binary format.
+	 * Edges pointing to nodes that are not part of the graph are not stored.
+	 * @param graph The graph
+	 * @param file The file to save the graph to
+	 * @param sourceChecksum The checksum of the file the graph was read from
+	 *            or {@link #NO_CHECKSUM}
+	 * @throws IOException If the file could not be written
+	 */
+	public static void saveGraph(Graph graph, String file, long sourceChecksum) throws IOException {
+		CompiledGraph compiled = graph.getCompiledGraph();
+		int nodeCount = compiled.getNodeCount();
+		int edgeCount = compiled.getEdgeCount();
+
+		Map<String, Integer> nameMap = new HashMap<String, Integer>();
+		List<byte[]> names = new ArrayList<byte[]>();
+		int[] nameIndices = new int[nodeCount];
+		long nameBytes = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			String name = compiled.getNode(i).getName();
+			if (name == null) {
+				nameIndices[i] = -1;
+				continue;
+			}
+			Integer index = nameMap.get(name);
+			if (index == null) {
+				index = names.size();
+				byte[] bytes = name.getBytes(CHARSET);
+				names.add(bytes);
+				nameMap.put(name, index);
+				nameBytes += 4 + bytes.length;
+			}
+			nameIndices[i] = index;
+		}
+
+		int wayPointCount = 0;
+		for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+			wayPointCount += compiled.getEdge(edgeId).getWayPoints().size();
+		}
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(graph.getWidth());
+			output.writeInt(graph.getHeight());
+			output.writeInt(nodeCount);
+			output.writeInt(edgeCount);
+			output.writeInt(wayPointCount);
+			output.writeInt(names.size());
+			output.writeLong(nameBytes);
+			output.writeLong(sourceChecksum);
+
+			for (int i = 0; i < nodeCount; i++) {
+				output.writeInt(compiled.getNode(i).getCoordinate().getX());
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				output.writeInt(compiled.getNode(i).getCoordinate().getY());
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				output.writeInt(nameIndices[i]);
+			}
+
+			for (int i = 0; i < nodeCount; i++) {
+				output.writeInt(compiled.getFirstEdge(i));
+			}
+			output.writeInt(edgeCount);
+			for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+				output.writeInt(compiled.getTarget(edgeId));
+			}
+
+			int wayPointOffset = 0;
+			output.writeInt(wayPointOffset);
+			for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+				wayPointOffset += compiled.getEdge(edgeId).getWayPoints().size();
+				output.writeInt(wayPointOffset);
+			}
+			for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+				for (Coordinate wayPoint : compiled.getEdge(edgeId).getWayPoints()) {
+					output.writeInt(wayPoint.getX());
+				}
+			}
+			for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+				for (Coordinate wayPoint : compiled.getEdge(edgeId).getWayPoints()) {
+					output.writeInt(wayPoint.getY());
+				}
+			}
+
+			for (byte[] name : names) {
+				output.writeInt(name.length);
+				output.write(name);
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Converts a graph file to the binary format.
+	 * Usage: <code>BinaryGraphIO &lt;input.graph.xml&gt; [output.graph.bin]</code>
+	 * @param args The arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: BinaryGraphIO <input.graph.xml> [output" + EXTENSION + "]");
+			System.exit(2);
+		}
+		String input = args[0];
+		String output;
+		if (args.length > 1) {
+			output = args[1];
+		} else if (input.endsWith(".graph.xml")) {
+			output = input.substring(0, input.length() - ".graph.xml".length()) + EXTENSION;
+		} else {
+			output = input + EXTENSION;
+		}
+
+		Graph graph = GraphIO.loadGraph(input);
+		if (graph == null) {
+			System.err.println("Could not load graph: " + input);
+			System.exit(1);
+		}
+		try {
+			saveGraph(graph, output, GraphCache.checksum(new File(input)));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		System.out.println("Wrote " + output + ": " + graph.getNodes().size() + " nodes, "
+				+ graph.getCompiledGraph().getEdgeCount() + " edges");
+	}
+
+	private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+	}
+}
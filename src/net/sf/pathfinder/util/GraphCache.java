@@ -0,0 +1,204 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import net.sf.pathfinder.model.Graph;
+
+/**
+ * Loads graphs and transparently caches parsed graph files in the format of
+ * {@link BinaryGraphIO}. A cache entry is keyed by the CRC-32 checksum and the
+ * length of the source file, so changed files are parsed again and unchanged
+ * ones are loaded from the cache, whatever their name or location.
+ * <p>
+ * The cache directory is set with the system property
+ * <code>pathfinder.graphCache</code>, <code>none</code> disables the cache.
+ * By default the directory <code>.pathfinder/graph-cache</code> in the home
+ * directory of the user is used. Directories and entries created by the
+ * cache are only accessible by their owner, so other users can not plant
+ * entries in it.
+ */
+public final class GraphCache {
+
+	/**
+	 * The system property with the cache directory
+	 */
+	public static final String CACHE_PROPERTY = "pathfinder.graphCache";
+
+	/**
+	 * The value of {@link #CACHE_PROPERTY} that disables the cache
+	 */
+	public static final String CACHE_DISABLED = "none";
+
+	private GraphCache() {
+
+	}
+
+	/**
+	 * Loads a graph. Binary graph files are loaded directly, graph files in
+	 * the format of {@link GraphIO} are loaded from the cache if possible,
+	 * otherwise they are parsed and added to the cache.
+	 * @param file The file to load the graph from
+	 * @return The graph or null, if the file could not be read
+	 */
+	public static Graph load(String file) {
+		if (BinaryGraphIO.isBinaryGraph(file)) {
+			try {
+				return BinaryGraphIO.loadGraph(file);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+
+		File cacheDirectory = getCacheDirectory();
+		if (cacheDirectory == null) {
+			return GraphIO.loadGraph(file);
+		}
+
+		File source = new File(file);
+		long checksum;
+		try {
+			checksum = checksum(source);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		File cacheFile = new File(cacheDirectory, getCacheName(source, checksum));
+		if (cacheFile.isFile()) {
+			try {
+				return BinaryGraphIO.loadGraph(cacheFile.getPath(), checksum);
+			} catch (IOException e) {
+				//outdated or damaged entry, it is replaced below
+			}
+		}
+
+		Graph graph = GraphIO.loadGraph(file);
+		if (graph != null) {
+			store(graph, cacheFile, checksum);
+		}
+		return graph;
+	}
+
+	/**
+	 * Gets the cache directory
+	 * @return The directory or null, if the cache is disabled
+	 */
+	public static File getCacheDirectory() {
+		String directory = System.getProperty(CACHE_PROPERTY);
+		if (CACHE_DISABLED.equals(directory)) {
+			return null;
+		}
+		if (StringUtils.isNullOrEmpty(directory)) {
+			return new File(new File(System.getProperty("user.home"), ".pathfinder"), "graph-cache");
+		}
+		return new File(directory);
+	}
+
+	/**
+	 * Calculates the CRC-32 checksum of a file
+	 * @param file The file
+	 * @return The checksum
+	 * @throws IOException If the file could not be read
+	 */
+	public static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int count;
+			while ((count = input.read(buffer)) > -1) {
+				crc.update(buffer, 0, count);
+			}
+		} finally {
+			input.close();
+		}
+		return crc.getValue();
+	}
+
+	private static String getCacheName(File source, long checksum) {
+		return String.format("%08x-%x", checksum, source.length()) + BinaryGraphIO.EXTENSION;
+	}
+
+	/**
+	 * Writes a cache entry. The graph is written to a temporary file first, so
+	 * concurrent loaders never see an incomplete entry.
+	 */
+	private static void store(Graph graph, File cacheFile, long checksum) {
+		File directory = cacheFile.getParentFile();
+		if (!createDirectories(directory)) {
+			return;
+		}
+		File temporaryFile = null;
+		try {
+			temporaryFile = File.createTempFile("graph", ".tmp", directory);
+			restrictToOwner(temporaryFile);
+			BinaryGraphIO.saveGraph(graph, temporaryFile.getPath(), checksum);
+			if (!temporaryFile.renameTo(cacheFile)) {
+				cacheFile.delete();
+				temporaryFile.renameTo(cacheFile);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (temporaryFile != null && temporaryFile.exists()) {
+				temporaryFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Creates a directory and its missing parents, the created ones are only
+	 * accessible by the owner
+	 * @return True if the directory exists, otherwise false
+	 */
+	private static boolean createDirectories(File directory) {
+		if (directory.isDirectory()) {
+			return true;
+		}
+		File parent = directory.getAbsoluteFile().getParentFile();
+		if (parent != null && !createDirectories(parent)) {
+			return false;
+		}
+		if (!directory.mkdir()) {
+			//maybe created concurrently
+			return directory.isDirectory();
+		}
+		restrictToOwner(directory);
+		return true;
+	}
+
+	/**
+	 * Revokes all permissions of the group and others
+	 */
+	private static void restrictToOwner(File file) {
+		file.setReadable(false, false);
+		file.setReadable(true, true);
+		file.setWritable(false, false);
+		file.setWritable(true, true);
+		if (file.isDirectory()) {
+			file.setExecutable(false, false);
+			file.setExecutable(true, true);
+		}
+	}
+}
@@ -17,7 +17,11 @@
 
 package net.sf.pathfinder.util;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,11 +30,14 @@ import java.util.Map;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElements;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import net.sf.pathfinder.model.Coordinate;
 import net.sf.pathfinder.model.Edge;
@@ -50,47 +57,131 @@ public final class GraphIO {
 	}
 	
 	/**
-	 * Loads a graph
+	 * Loads a graph.
+	 * The file is read in a single pass with a pull parser, nodes and edges are
+	 * created directly while reading and the node ids are resolved through an
+	 * {@link IntObjectMap}. Edges may refer to nodes declared later in the file.
 	 * @param file The file to load the graph from
-	 * @return The graph
+	 * @return The graph or null, if the file could not be read
 	 */
 	public static Graph loadGraph(String file) {
+		InputStream input = null;
+		XMLStreamReader reader = null;
 		try {
-			JAXBContext context = JAXBContext.newInstance(GraphElement.class);
-			Unmarshaller unmarshaller = context.createUnmarshaller();
-			GraphElement graphElement = (GraphElement) unmarshaller.unmarshal(new File(file));
-
-			Map<Integer, Node> nodeMap = new HashMap<Integer, Node>();
-			//read nodes
-			for (NodeElement nodeElement : graphElement.nodes) {
-				Coordinate coordinate = new Coordinate(nodeElement.x, nodeElement.y);
-				nodeMap.put(nodeElement.nodeId, new Node(coordinate, nodeElement.name));
-			}
+			input = new BufferedInputStream(new FileInputStream(file));
+			reader = createInputFactory().createXMLStreamReader(input);
 
-			for (EdgeElement edgeElement : graphElement.edges) {
-				//Its already done at saving...but just go save
-				if (edgeElement.destinationId == edgeElement.sourceId) {
+			Graph graph = new Graph();
+			IntObjectMap<Node> nodeMap = new IntObjectMap<Node>(1024);
+			List<PendingEdge> pendingEdges = new ArrayList<PendingEdge>();
+			Edge edge = null;
+			PendingEdge pendingEdge = null;
+			int depth = 0;
+
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == 2) {
+						edge = null;
+						pendingEdge = null;
+					}
+					depth--;
+					continue;
+				}
+				if (event != XMLStreamConstants.START_ELEMENT) {
 					continue;
 				}
-				Node source = nodeMap.get(edgeElement.sourceId);
-				Node destination = nodeMap.get(edgeElement.destinationId);
+				depth++;
+				String element = reader.getLocalName();
+				if (depth == 1) {
+					graph.setWidth(getInt(reader, "width", 0));
+					graph.setHeight(getInt(reader, "height", 0));
+				} else if (depth == 2 && "node".equals(element)) {
+					Coordinate coordinate = new Coordinate(getInt(reader, "x", 0), getInt(reader, "y", 0));
+					nodeMap.put(getInt(reader, "id", 0),
+							new Node(coordinate, reader.getAttributeValue(null, "name")));
+				} else if (depth == 2 && "edge".equals(element)) {
+					int sourceId = getInt(reader, "source", 0);
+					int destinationId = getInt(reader, "destination", 0);
+					//Its already done at saving...but just go save
+					if (sourceId == destinationId) {
+						continue;
+					}
+					Node source = nodeMap.get(sourceId);
+					Node destination = nodeMap.get(destinationId);
+					if (source != null && destination != null && pendingEdges.isEmpty()) {
+						edge = new Edge(source, destination);
+						source.getEdges().add(edge);
+					} else {
+						//keep the file order of the edges once one has to wait for its nodes
+						pendingEdge = new PendingEdge(sourceId, destinationId);
+						pendingEdges.add(pendingEdge);
+					}
+				} else if (depth == 3 && "waypoint".equals(element)) {
+					Coordinate wayPoint = new Coordinate(getInt(reader, "x", 0), getInt(reader, "y", 0));
+					if (edge != null) {
+						edge.getWayPoints().add(wayPoint);
+					} else if (pendingEdge != null) {
+						pendingEdge.wayPoints.add(wayPoint);
+					}
+				}
+			}
 
-				Edge edge = new Edge(source, destination);
-				for (WayPointElement wayPoint : edgeElement.wayPoints) {
-					edge.getWayPoints().add(new Coordinate(wayPoint.x, wayPoint.y));
+			for (PendingEdge pending : pendingEdges) {
+				Node source = nodeMap.get(pending.sourceId);
+				Node destination = nodeMap.get(pending.destinationId);
+				if (source == null || destination == null) {
+					continue;
 				}
-				source.getEdges().add(edge);
+				Edge resolved = new Edge(source, destination);
+				resolved.getWayPoints().addAll(pending.wayPoints);
+				source.getEdges().add(resolved);
 			}
-			Graph graph = new Graph();
-			graph.setWidth(graphElement.width);
-			graph.setHeight(graphElement.height);
-			graph.getNodes().addAll(nodeMap.values());
 
+			for (int id : nodeMap.sortedKeys()) {
+				graph.getNodes().add(nodeMap.get(id));
+			}
 			return graph;
-		} catch (JAXBException e) {
+		} catch (XMLStreamException e) {
+			e.printStackTrace();
+			return null;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} catch (NumberFormatException e) {
 			e.printStackTrace();
 			return null;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					e.printStackTrace();
+				}
+			}
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	private static int getInt(XMLStreamReader reader, String attribute, int defaultValue) {
+		String value = reader.getAttributeValue(null, attribute);
+		if (value == null) {
+			return defaultValue;
 		}
+		return Integer.parseInt(value.trim());
 	}
 
 	/**
@@ -149,6 +240,20 @@ public final class GraphIO {
 
 	}
 
+	/**
+	 * An edge whose nodes were not read yet
+	 */
+	private static class PendingEdge {
+		private final int sourceId;
+		private final int destinationId;
+		private final List<Coordinate> wayPoints = new ArrayList<Coordinate>();
+
+		PendingEdge(int sourceId, int destinationId) {
+			this.sourceId = sourceId;
+			this.destinationId = destinationId;
+		}
+	}
+
 	@XmlRootElement(name = "graph")
 	private static class GraphElement {
 
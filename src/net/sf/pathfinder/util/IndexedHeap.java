@@ -0,0 +1,221 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/
+
+package net.sf.pathfinder.util;
+
+import java.util.Arrays;
+
+/**
+ * An indexed d-ary min heap over the ids <code>0..capacity-1</code> with
+ * <code>double</code> keys. Every id can be in the heap at most once, its
+ * position is tracked so {@link #decreaseKey(int, double)} and
+ * {@link #contains(int)} don't have to search the heap.
+ */
+public class IndexedHeap {
+
+	private static final int ARITY = 4;
+
+	private final int[] heap;
+	private final double[] keys;
+	private final int[] positions;
+	private int size = 0;
+
+	/**
+	 * Creates a new heap
+	 * @param capacity Number of ids the heap can hold
+	 */
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Gets the number of ids the heap can hold
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return heap.length;
+	}
+
+	/**
+	 * Gets the number of ids in the heap
+	 * @return The size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Indicates whether the heap is empty
+	 * @return True if the heap is empty, otherwise false
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Indicates whether the id is in the heap
+	 * @param id The id
+	 * @return True if the id is in the heap, otherwise false
+	 */
+	public boolean contains(int id) {
+		return positions[id] >= 0;
+	}
+
+	/**
+	 * Gets the key of an id in the heap
+	 * @param id The id
+	 * @return The key
+	 */
+	public double getKey(int id) {
+		return keys[id];
+	}
+
+	/**
+	 * Removes all ids from the heap.
+	 * Only the ids still in the heap are touched.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Inserts an id
+	 * @param id The id, must not be in the heap
+	 * @param key The key of the id
+	 */
+	public void insert(int id, double key) {
+		keys[id] = key;
+		heap[size] = id;
+		positions[id] = size;
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Decreases the key of an id in the heap
+	 * @param id The id
+	 * @param key The new key, must not be greater than the current one
+	 */
+	public void decreaseKey(int id, double key) {
+		keys[id] = key;
+		siftUp(positions[id]);
+	}
+
+	/**
+	 * Inserts the id or decreases its key, if the new key is smaller
+	 * @param id The id
+	 * @param key The key
+	 * @return True if the heap was changed, otherwise false
+	 */
+	public boolean insertOrDecrease(int id, double key) {
+		if (positions[id] < 0) {
+			insert(id, key);
+			return true;
+		}
+		if (key < keys[id]) {
+			decreaseKey(id, key);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the smallest key in the heap
+	 * @return The smallest key
+	 */
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Gets the id with the smallest key
+	 * @return The id
+	 */
+	public int peek() {
+		return heap[0];
+	}
+
+	/**
+	 * Removes the id with the smallest key
+	 * @return The removed id
+	 */
+	public int removeMin() {
+		int result = heap[0];
+		positions[result] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			positions[last] = 0;
+			siftDown(0);
+		}
+		return result;
+	}
+
+	private void siftUp(int position) {
+		int id = heap[position];
+		double key = keys[id];
+		while (position > 0) {
+			int parentPosition = (position - 1) / ARITY;
+			int parent = heap[parentPosition];
+			if (keys[parent] <= key) {
+				break;
+			}
+			heap[position] = parent;
+			positions[parent] = position;
+			position = parentPosition;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+
+	private void siftDown(int position) {
+		int id = heap[position];
+		double key = keys[id];
+		while (true) {
+			int firstChild = position * ARITY + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + ARITY, size);
+			int minPosition = firstChild;
+			double minKey = keys[heap[firstChild]];
+			for (int i = firstChild + 1; i < lastChild; i++) {
+				double childKey = keys[heap[i]];
+				if (childKey < minKey) {
+					minKey = childKey;
+					minPosition = i;
+				}
+			}
+			if (minKey >= key) {
+				break;
+			}
+			int child = heap[minPosition];
+			heap[position] = child;
+			positions[child] = position;
+			position = minPosition;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+}
@@ -0,0 +1,132 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive <code>int</code> values
+ */
+public class IntList implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int[] values;
+	private int size = 0;
+
+	/**
+	 * Creates a new, empty list
+	 */
+	public IntList() {
+		this(8);
+	}
+
+	/**
+	 * Creates a new, empty list
+	 * @param capacity The initial capacity
+	 */
+	public IntList(int capacity) {
+		values = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Gets the number of values in the list
+	 * @return The size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the value at the specified index
+	 * @param index The index
+	 * @return The value
+	 */
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return values[index];
+	}
+
+	/**
+	 * Sets the value at the specified index
+	 * @param index The index
+	 * @param value The value
+	 */
+	public void set(int index, int value) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		values[index] = value;
+	}
+
+	/**
+	 * Appends a value
+	 * @param value The value
+	 */
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Removes the first occurrence of a value. The last value of the list
+	 * takes its place, so the order is not preserved.
+	 * @param value The value
+	 * @return True if the value was found, otherwise false
+	 */
+	public boolean removeValue(int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				values[i] = values[--size];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the last value
+	 * @return The removed value
+	 */
+	public int removeLast() {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException("The list is empty");
+		}
+		return values[--size];
+	}
+
+	/**
+	 * Removes all values
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Copies the values into a new array
+	 * @return The array
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
@@ -0,0 +1,145 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map with primitive <code>int</code> keys, using open addressing
+ * with linear probing, so no key objects and entries are created.
+ * <code>null</code> values are not supported.
+ * @param <V> The type of the values
+ */
+public class IntObjectMap<V> {
+
+	private int[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int mask;
+
+	/**
+	 * Creates a new, empty map
+	 */
+	public IntObjectMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates a new, empty map
+	 * @param capacity The number of entries the map holds without growing
+	 */
+	public IntObjectMap(int capacity) {
+		int tableSize = Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) << 1;
+		keys = new int[tableSize];
+		values = new Object[tableSize];
+		mask = tableSize - 1;
+	}
+
+	/**
+	 * Gets the number of entries
+	 * @return The size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the value of a key
+	 * @param key The key
+	 * @return The value or null, if the key is not in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int index = index(key);
+		while (values[index] != null) {
+			if (keys[index] == key) {
+				return (V) values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Puts a value
+	 * @param key The key
+	 * @param value The value, must not be null
+	 * @return The previous value of the key or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("null values are not supported");
+		}
+		int index = index(key);
+		while (values[index] != null) {
+			if (keys[index] == key) {
+				V previous = (V) values[index];
+				values[index] = value;
+				return previous;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		size++;
+		if (size * 2 > keys.length) {
+			grow();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets all keys, in ascending order
+	 * @return The keys
+	 */
+	public int[] sortedKeys() {
+		int[] result = new int[size];
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != null) {
+				result[count++] = keys[i];
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private int index(int key) {
+		int hash = key * 0x9e3779b9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new Object[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int index = index(oldKeys[i]);
+				while (values[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+}
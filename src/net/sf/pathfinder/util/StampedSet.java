@@ -0,0 +1,108 @@
+/****************************************************************************************
+ * Copyright (c) 2009 Armin Widegreen <armin.widegreen@gmail.com>                       *
+ *                    Dirk Reske <email@dirkreske.de>                                   *
+ *                                                                                      *
+ * This program is free software; you can redistribute it and/or modify it under        *
+ * the terms of the GNU General Public License as published by the Free Software        *
+ * Foundation, either version 3 of the License, or (at your option) any later           *
+ * version.                                                                             *
+ *                                                                                      *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY      *
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A      *
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.             *
+ *                                                                                      *
+ * You should have received a copy of the GNU General Public License along with         *
+ * this program.  If not, see <http://www.gnu.org/licenses/>.                           *
+ ****************************************************************************************/ 
+
+package net.sf.pathfinder.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of the ids <code>0..capacity-1</code>, like a {@link java.util.BitSet}
+ * that can be emptied in constant time. Every id stores the generation it was
+ * added in; {@link #clear()} just starts a new generation, so a set can be
+ * reused for many searches without touching its memory.
+ */
+public class StampedSet {
+
+	private int[] stamps;
+	private int generation = 1;
+
+	/**
+	 * Creates a new set
+	 * @param capacity Number of ids the set can hold
+	 */
+	public StampedSet(int capacity) {
+		stamps = new int[capacity];
+	}
+
+	/**
+	 * Gets the number of ids the set can hold
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return stamps.length;
+	}
+
+	/**
+	 * Removes all ids and makes sure the set can hold the specified number of
+	 * ids
+	 * @param capacity The needed capacity
+	 */
+	public void clear(int capacity) {
+		if (capacity > stamps.length) {
+			stamps = new int[capacity];
+			generation = 1;
+		} else {
+			clear();
+		}
+	}
+
+	/**
+	 * Removes all ids
+	 */
+	public void clear() {
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Indicates whether the id is in the set
+	 * @param id The id
+	 * @return True if the id is in the set, otherwise false
+	 */
+	public boolean contains(int id) {
+		return stamps[id] == generation;
+	}
+
+	/**
+	 * Adds an id
+	 * @param id The id
+	 * @return True if the id was not in the set before, otherwise false
+	 */
+	public boolean add(int id) {
+		if (stamps[id] == generation) {
+			return false;
+		}
+		stamps[id] = generation;
+		return true;
+	}
+
+	/**
+	 * Removes an id
+	 * @param id The id
+	 * @return True if the id was in the set, otherwise false
+	 */
+	public boolean remove(int id) {
+		if (stamps[id] != generation) {
+			return false;
+		}
+		stamps[id] = 0;
+		return true;
+	}
+}
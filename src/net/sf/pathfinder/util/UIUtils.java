@@ -18,6 +18,7 @@
 package net.sf.pathfinder.util;
 
 import java.awt.Component;
+import java.awt.GraphicsEnvironment;
 
 import javax.swing.JOptionPane;
 
@@ -42,7 +43,8 @@ public final class UIUtils {
 	}
 	
 	/**
-	 * Shows an error message
+	 * Shows an error message. Without a display, e.g. in batch mode, the
+	 * message is printed to the standard error stream.
 	 * @param parent The parent component
 	 * @param message The message
 	 * @param e The corresponding exception
@@ -58,6 +60,10 @@ public final class UIUtils {
 			sb.append(e.getMessage());
 		}
 		
+		if (GraphicsEnvironment.isHeadless()) {
+			System.err.println("Error: " + sb.toString().trim());
+			return;
+		}
 		JOptionPane.showMessageDialog(parent, sb.toString(), "Error", JOptionPane.ERROR_MESSAGE);
 	}
 }